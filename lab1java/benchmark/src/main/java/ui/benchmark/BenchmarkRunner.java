@@ -0,0 +1,51 @@
+package ui.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Starting point of the benchmarks. Runs JMH with the GC profiler, so the allocation rate
+ * is reported next to the throughput. Accepts the usual JMH arguments, for example:
+ * <pre>
+ * java -jar target/benchmarks.jar SearchBenchmark -p shape=GRID -p states=100000
+ * </pre>
+ * The default sizes fit into the 4 GB heap of the forked JVM. State spaces with 10^7 states
+ * need a heap of about 16 GB:
+ * <pre>
+ * java -jar target/benchmarks.jar SearchBenchmark -p states=10000000 -jvmArgsAppend "-Xms16g -Xmx16g"
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Starting point.
+     * @param args JMH command line arguments
+     * @throws CommandLineOptionException if there is an error with the arguments
+     * @throws RunnerException if the benchmarks fail
+     * @throws IOException if the help cannot be printed
+     */
+    public static void main(String ... args) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        Runner runner = new Runner(new OptionsBuilder()
+                .parent(options)
+                .addProfiler(GCProfiler.class)
+                .build());
+
+        // the runner itself ignores the informational options, JMH handles them in its own main class
+        if (options.shouldHelp()) {
+            options.showHelp();
+        } else if (options.shouldListWithParams()) {
+            runner.listWithParams(options);
+        } else if (options.shouldList()) {
+            runner.list();
+        } else {
+            runner.run();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package ui.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ui.descriptor.HeuristicFunctionDescriptor;
+import ui.descriptor.StateSpaceDescriptor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time needed to parse the state space and heuristic descriptors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ParseBenchmark {
+    /** Shape of the state space */
+    @Param({"GRID", "RANDOM", "TREE"})
+    public StateSpaceGenerator.Shape shape;
+
+    /** Approximate number of states */
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int states;
+
+    /** Directory of the generated files */
+    private Path dir;
+    /** Path of the state space descriptor */
+    private Path stateSpace;
+    /** Path of the heuristic descriptor */
+    private Path heuristic;
+
+    /**
+     * Generates the descriptors.
+     * @throws IOException if there is a problem with writing the files
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("uui-bench");
+        stateSpace = dir.resolve("ss.txt");
+        heuristic = dir.resolve("h.txt");
+        StateSpaceGenerator.generate(shape, states, stateSpace, heuristic);
+    }
+
+    /**
+     * Deletes the descriptors.
+     * @throws IOException if there is a problem with deleting the files
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(stateSpace);
+        Files.delete(heuristic);
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public StateSpaceDescriptor parseStateSpace() throws IOException {
+        return new StateSpaceDescriptor(stateSpace.toString());
+    }
+
+    @Benchmark
+    public HeuristicFunctionDescriptor parseHeuristic() throws IOException {
+        return new HeuristicFunctionDescriptor(heuristic.toString());
+    }
+}
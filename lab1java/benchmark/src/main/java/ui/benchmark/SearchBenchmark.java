@@ -0,0 +1,120 @@
+package ui.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ui.descriptor.CompiledStateSpace;
+import ui.descriptor.HeuristicFunctionDescriptor;
+import ui.descriptor.StateSpaceDescriptor;
+import ui.search.Algorithms;
+import ui.search.CompiledAlgorithms;
+import ui.search.SearchResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the search algorithms on synthetic state spaces.
+ * The visited counter reports the number of visited states per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SearchBenchmark {
+    /** Shape of the state space */
+    @Param({"GRID", "RANDOM", "TREE"})
+    public StateSpaceGenerator.Shape shape;
+
+    /** Approximate number of states */
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int states;
+
+    /** State space descriptor */
+    private StateSpaceDescriptor ssd;
+    /** Heuristic function descriptor */
+    private HeuristicFunctionDescriptor hfd;
+    /** Compiled state space */
+    private CompiledStateSpace css;
+    /** Heuristic values indexed by state id */
+    private double[] h;
+
+    /**
+     * Counter of visited states, reported as a rate
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Visited {
+        /** Number of visited states */
+        public long visited;
+
+        /**
+         * Resets the counter before every iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            visited = 0;
+        }
+    }
+
+    /**
+     * Generates and loads the state space.
+     * @throws IOException if there is a problem with the generated files
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Path dir = Files.createTempDirectory("uui-bench");
+        Path stateSpace = dir.resolve("ss.txt");
+        Path heuristic = dir.resolve("h.txt");
+        StateSpaceGenerator.generate(shape, states, stateSpace, heuristic);
+
+        ssd = new StateSpaceDescriptor(stateSpace.toString());
+        hfd = new HeuristicFunctionDescriptor(heuristic.toString());
+        css = new CompiledStateSpace(ssd);
+        h = css.heuristicTable(hfd);
+
+        Files.delete(stateSpace);
+        Files.delete(heuristic);
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public SearchResult bfs(Visited counter) {
+        return count(counter, Algorithms.bfs(ssd.getInitialState(), ssd.SUCCESSOR_BY_NAME, ssd.GOAL));
+    }
+
+    @Benchmark
+    public SearchResult ucs(Visited counter) {
+        return count(counter, Algorithms.ucs(ssd.getInitialState(), ssd.SUCCESSOR, ssd.GOAL));
+    }
+
+    @Benchmark
+    public SearchResult astar(Visited counter) {
+        return count(counter, Algorithms.astar(ssd.getInitialState(), ssd.SUCCESSOR, ssd.GOAL, hfd.HEURISTIC));
+    }
+
+    @Benchmark
+    public SearchResult compiledBfs(Visited counter) {
+        return count(counter, CompiledAlgorithms.bfs(css));
+    }
+
+    @Benchmark
+    public SearchResult compiledUcs(Visited counter) {
+        return count(counter, CompiledAlgorithms.ucs(css));
+    }
+
+    @Benchmark
+    public SearchResult compiledAstar(Visited counter) {
+        return count(counter, CompiledAlgorithms.astar(css, h));
+    }
+
+    /**
+     * Adds the visited states of the result to the counter.
+     */
+    private static SearchResult count(Visited counter, SearchResult result) {
+        counter.visited += result.getStatesVisited();
+        return result;
+    }
+}
@@ -0,0 +1,126 @@
+package ui.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Writes synthetic state space and heuristic descriptors used by the benchmarks.
+ */
+public class StateSpaceGenerator {
+
+    /**
+     * Shapes of generated state spaces
+     */
+    public enum Shape {
+        /** Square grid with unit cost moves to the four neighbours, goal in the opposite corner */
+        GRID,
+        /** Random sparse graph with four transitions per state on average and random costs */
+        RANDOM,
+        /** Deep tree, a spine to the goal with a dead end leaf hanging from every spine state */
+        TREE
+    }
+
+    /**
+     * Writes the state space descriptor and a matching admissible heuristic descriptor.
+     * @param shape shape of the state space
+     * @param states approximate number of states
+     * @param stateSpace path of the state space descriptor
+     * @param heuristic path of the heuristic descriptor
+     * @throws IOException if there is a problem with writing the files
+     */
+    public static void generate(Shape shape, int states, Path stateSpace, Path heuristic) throws IOException {
+        switch (shape) {
+            case GRID:
+                grid((int) Math.ceil(Math.sqrt(states)), stateSpace, heuristic);
+                break;
+            case RANDOM:
+                random(states, stateSpace, heuristic);
+                break;
+            case TREE:
+                tree(states, stateSpace, heuristic);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported shape: " + shape);
+        }
+    }
+
+    /**
+     * Writes a square grid with the given side.
+     */
+    private static void grid(int side, Path stateSpace, Path heuristic) throws IOException {
+        try (BufferedWriter ss = Files.newBufferedWriter(stateSpace);
+             BufferedWriter h = Files.newBufferedWriter(heuristic)) {
+            ss.write("# grid " + side + "x" + side + "\n");
+            ss.write(cell(0, 0) + "\n");
+            ss.write(cell(side - 1, side - 1) + "\n");
+            int[][] moves = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+            for (int x = 0; x < side; x++) {
+                for (int y = 0; y < side; y++) {
+                    ss.write(cell(x, y) + ":");
+                    for (int[] move : moves) {
+                        int nx = x + move[0], ny = y + move[1];
+                        if (nx >= 0 && ny >= 0 && nx < side && ny < side)
+                            ss.write(" " + cell(nx, ny) + ",1");
+                    }
+                    ss.write("\n");
+                    // manhattan distance to the goal
+                    h.write(cell(x, y) + ": " + ((side - 1 - x) + (side - 1 - y)) + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a random sparse graph. A chain through all states guarantees that the goal is reachable.
+     */
+    private static void random(int states, Path stateSpace, Path heuristic) throws IOException {
+        Random random = new Random(42);
+        try (BufferedWriter ss = Files.newBufferedWriter(stateSpace);
+             BufferedWriter h = Files.newBufferedWriter(heuristic)) {
+            ss.write("# random " + states + "\n");
+            ss.write("s0\n");
+            ss.write("s" + (states - 1) + "\n");
+            for (int i = 0; i < states; i++) {
+                ss.write("s" + i + ":");
+                if (i + 1 < states)
+                    ss.write(" s" + (i + 1) + "," + (1 + random.nextInt(10)));
+                for (int j = random.nextInt(7); j > 0; j--)
+                    ss.write(" s" + random.nextInt(states) + "," + (1 + random.nextInt(10)));
+                ss.write("\n");
+                h.write("s" + i + ": 0\n");
+            }
+        }
+    }
+
+    /**
+     * Writes a deep tree whose depth is half of the number of states.
+     */
+    private static void tree(int states, Path stateSpace, Path heuristic) throws IOException {
+        int depth = Math.max(1, states / 2);
+        try (BufferedWriter ss = Files.newBufferedWriter(stateSpace);
+             BufferedWriter h = Files.newBufferedWriter(heuristic)) {
+            ss.write("# tree " + depth + "\n");
+            ss.write("t0\n");
+            ss.write("t" + (depth - 1) + "\n");
+            for (int i = 0; i < depth; i++) {
+                ss.write("t" + i + ":");
+                if (i + 1 < depth)
+                    ss.write(" t" + (i + 1) + ",1 l" + i + ",1");
+                ss.write("\n");
+                ss.write("l" + i + ":\n");
+                h.write("t" + i + ": " + (depth - 1 - i) + "\n");
+                h.write("l" + i + ": 0\n");
+            }
+        }
+    }
+
+    /**
+     * Returns the name of a grid cell.
+     */
+    private static String cell(int x, int y) {
+        return "c" + x + "_" + y;
+    }
+}
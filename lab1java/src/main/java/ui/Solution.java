@@ -1,13 +1,40 @@
 package ui;
 
+import ui.batch.BatchSearch;
+import ui.batch.Query;
+import ui.data.CostUpdate;
+import ui.data.Transition;
+import ui.descriptor.CompiledStateSpace;
 import ui.descriptor.HeuristicFunctionDescriptor;
 import ui.descriptor.StateSpaceDescriptor;
+import ui.descriptor.StateSpaceSnapshot;
 import ui.heuristic.Checker;
+import ui.heuristic.HeuristicTable;
+import ui.heuristic.Landmarks;
 import ui.search.Algorithms;
+import ui.search.AnytimeAlgorithms;
+import ui.search.BidirectionalAlgorithms;
+import ui.search.CompiledAlgorithms;
+import ui.search.ContractionHierarchy;
+import ui.search.ExternalMemoryAlgorithms;
+import ui.search.IncrementalPlanner;
+import ui.search.MemoryBoundedAlgorithms;
+import ui.search.ParallelAlgorithms;
+import ui.search.PortfolioSearch;
 import ui.search.SearchAlgorithm;
+import ui.search.SearchListener;
+import ui.search.SearchMetrics;
 import ui.search.SearchResult;
+import ui.server.SearchServer;
+import ui.space.StateSpace;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Starting point of program.
@@ -17,12 +44,68 @@ public class Solution {
 	private static SearchAlgorithm algorithm;
 	/** Path to file from which to initialize state space descriptor */
 	private static String pathToStateSpaceDescriptor;
-	/** Path to file from which to initialize heuristic function descriptor */
+	/** Specification of the generated state space */
+	private static String stateSpaceSpecification;
+	/** Path to file from which to initialize heuristic function descriptor, the first one if there are more */
 	private static String pathToHeuristicFunctionDescriptor;
+	/** Paths to files of all heuristic function descriptors, which are combined into one heuristic */
+	private static List<String> pathsToHeuristicFunctionDescriptors;
+	/** Weights of the heuristics for their weighted sum, null to take their largest value */
+	private static double[] heuristicWeights;
+	/** Number of landmarks to select or path to file with landmarks of the landmark heuristic */
+	private static String landmarkSpecification;
+	/** Path to file in which to write the selected landmarks */
+	private static String pathToLandmarks;
+	/** Landmarks which were selected or loaded last, reused for the same state space */
+	private static Landmarks lastLandmarks;
+	/** Text state space descriptor, read and pruned only once */
+	private static StateSpaceDescriptor descriptor;
+	/** Compiled text state space descriptor, compiled only once */
+	private static CompiledStateSpace compiledDescriptor;
+	/** Path to file with the contraction hierarchy of the state space */
+	private static String pathToHierarchy;
+	/** Path to file in which to write the contraction hierarchy */
+	private static String pathToSavedHierarchy;
+	/** Path to file with batches of transition cost updates for incremental planning */
+	private static String pathToUpdates;
+	/** Algorithms raced by portfolio search */
+	private static List<String> portfolio;
+	/** Flag which signalizes whether portfolio search returns the first result even if it is not optimal */
+	private static Boolean first;
 	/** Flag which signalizes whether to check if the given heuristic is optimistic */
 	private static Boolean checkOptimistic;
 	/** Flag which signalizes whether to check if the given heuristic is consistent */
 	private static Boolean checkConsistent;
+	/** Number of violated conditions printed by the heuristic checks in summary mode */
+	private static Integer summary;
+	/** Weight of the heuristic for weighted and anytime search */
+	private static Double weight;
+	/** Amount by which the weight is decreased after each iteration of anytime search */
+	private static Double step;
+	/** Time in milliseconds after which anytime search stops */
+	private static Long deadline;
+	/** Number of expanded states after which anytime search stops */
+	private static Long expansions;
+	/** Maximum number of nodes in memory for memory-bounded search */
+	private static Integer memory;
+	/** Flag which signalizes whether to print the metrics of the search */
+	private static Boolean metrics;
+	/** Flag which signalizes whether to remove the states which are not on any path to a final state */
+	private static Boolean prune;
+	/** Flag which signalizes whether to run the search on the compiled state space */
+	private static Boolean compiled;
+	/** Maximum number of open and of closed states in memory for external memory search */
+	private static Integer external;
+	/** Path to file in which to write the compiled snapshot of the state space */
+	private static String pathToSnapshot;
+	/** Path to file with queries to answer in batch mode */
+	private static String pathToQueries;
+	/** Port on which to serve queries, 0 for any free port */
+	private static Integer port;
+	/** Flag which signalizes whether server queries may name any heuristic descriptor */
+	private static Boolean anyHeuristic;
+	/** Number of threads used by the concurrent modes */
+	private static Integer threads;
 
 	/**
 	 * Parses the command line arguments and initializes the state of the program.
@@ -44,7 +127,29 @@ public class Solution {
 							algorithm = SearchAlgorithm.UCS; break outer;
 						case "astar":
 							algorithm = SearchAlgorithm.ASTAR; break outer;
-						default: throw new IllegalArgumentException("Algorithm not supported!\nSupported algorithms are:\n\t1. bfs\n\t2. ucs\n\t 3. astar");
+						case "bibfs":
+							algorithm = SearchAlgorithm.BIBFS; break outer;
+						case "biucs":
+							algorithm = SearchAlgorithm.BIUCS; break outer;
+						case "idastar":
+							algorithm = SearchAlgorithm.IDASTAR; break outer;
+						case "smastar":
+							algorithm = SearchAlgorithm.SMASTAR; break outer;
+						case "hdastar":
+							algorithm = SearchAlgorithm.HDASTAR; break outer;
+						case "wastar":
+							algorithm = SearchAlgorithm.WASTAR; break outer;
+						case "arastar":
+							algorithm = SearchAlgorithm.ARASTAR; break outer;
+						case "pbfs":
+							algorithm = SearchAlgorithm.PBFS; break outer;
+						case "ch":
+							algorithm = SearchAlgorithm.CH; break outer;
+						case "lpastar":
+							algorithm = SearchAlgorithm.LPASTAR; break outer;
+						case "portfolio":
+							algorithm = SearchAlgorithm.PORTFOLIO; break outer;
+						default: throw new IllegalArgumentException("Algorithm not supported!\nSupported algorithms are:\n\t1. bfs\n\t2. ucs\n\t3. astar\n\t4. bibfs\n\t5. biucs\n\t6. idastar\n\t7. smastar\n\t8. hdastar\n\t9. wastar\n\t10. arastar\n\t11. pbfs\n\t12. ch\n\t13. lpastar\n\t14. portfolio");
 					}
 				case "--ss":
 					if (pathToStateSpaceDescriptor != null) throw new IllegalArgumentException("Path to state space descriptor was already set!");
@@ -52,12 +157,83 @@ public class Solution {
 					pathToStateSpaceDescriptor = args[i+1];
 					i++;
 					break;
+				case "--space":
+					if (stateSpaceSpecification != null) throw new IllegalArgumentException("Generated state space was already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No generated state space was provided!");
+					stateSpaceSpecification = args[i+1];
+					i++;
+					break;
 				case "--h":
-					if (pathToHeuristicFunctionDescriptor != null) throw new IllegalArgumentException("Path to heuristic descriptor was already set!");
 					if (i+1 >= args.length) throw new IllegalArgumentException("No path to heuristic descriptor was provided!");
-					pathToHeuristicFunctionDescriptor = args[i+1];
+					if (pathsToHeuristicFunctionDescriptors == null) {
+						pathToHeuristicFunctionDescriptor = args[i+1];
+						pathsToHeuristicFunctionDescriptors = new ArrayList<>();
+					}
+					if (pathsToHeuristicFunctionDescriptors.contains(args[i+1])) throw new IllegalArgumentException("Path to heuristic descriptor " + args[i+1] + " was already set!");
+					pathsToHeuristicFunctionDescriptors.add(args[i+1]);
+					i++;
+					break;
+				case "--h-weights":
+					if (heuristicWeights != null) throw new IllegalArgumentException("Heuristic weights were already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No heuristic weights were provided!");
+					String[] weights = args[i+1].split(",");
+					heuristicWeights = new double[weights.length];
+					for (int k = 0; k < weights.length; k++) {
+						try {
+							heuristicWeights[k] = Double.parseDouble(weights[k]);
+						} catch (NumberFormatException e) {
+							throw new IllegalArgumentException("Heuristic weights must be numbers!");
+						}
+						if (!(heuristicWeights[k] >= 0) || Double.isInfinite(heuristicWeights[k])) throw new IllegalArgumentException("Heuristic weights must not be negative!");
+					}
+					i++;
+					break;
+				case "--landmarks":
+					if (landmarkSpecification != null) throw new IllegalArgumentException("Landmarks were already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No number of landmarks or path to landmarks was provided!");
+					landmarkSpecification = args[i+1];
+					i++;
+					break;
+				case "--save-landmarks":
+					if (pathToLandmarks != null) throw new IllegalArgumentException("Path to landmarks was already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No path to landmarks was provided!");
+					pathToLandmarks = args[i+1];
+					i++;
+					break;
+				case "--hierarchy":
+					if (pathToHierarchy != null) throw new IllegalArgumentException("Path to contraction hierarchy was already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No path to contraction hierarchy was provided!");
+					pathToHierarchy = args[i+1];
+					i++;
+					break;
+				case "--save-hierarchy":
+					if (pathToSavedHierarchy != null) throw new IllegalArgumentException("Path to saved contraction hierarchy was already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No path to saved contraction hierarchy was provided!");
+					pathToSavedHierarchy = args[i+1];
 					i++;
 					break;
+				case "--updates":
+					if (pathToUpdates != null) throw new IllegalArgumentException("Path to cost updates was already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No path to cost updates was provided!");
+					pathToUpdates = args[i+1];
+					i++;
+					break;
+				case "--portfolio":
+					if (portfolio != null) throw new IllegalArgumentException("Portfolio was already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No portfolio was provided!");
+					portfolio = new ArrayList<>();
+					for (String name : args[i+1].split(",")) {
+						if (!name.equals("bfs") && !name.equals("ucs") && !name.equals("astar"))
+							throw new IllegalArgumentException("Portfolio algorithm not supported!\nSupported portfolio algorithms are:\n\t1. bfs\n\t2. ucs\n\t3. astar");
+						if (portfolio.contains(name)) throw new IllegalArgumentException("Portfolio algorithm " + name + " was already set!");
+						portfolio.add(name);
+					}
+					i++;
+					break;
+				case "--first":
+					if (first != null) throw new IllegalArgumentException("First flag was already set!");
+					first = true;
+					break;
 				case "--check-optimistic":
 					if (checkOptimistic != null) throw new IllegalArgumentException("Check optimistic flag was already set!");
 					checkOptimistic = true;
@@ -66,12 +242,153 @@ public class Solution {
 					if (checkConsistent != null) throw new IllegalArgumentException("Check consistent flag was already set!");
 					checkConsistent = true;
 					break;
+				case "--summary":
+					if (summary != null) throw new IllegalArgumentException("Summary was already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No number of violations for summary was provided!");
+					try {
+						summary = Integer.parseInt(args[i+1]);
+					} catch (NumberFormatException e) {
+						throw new IllegalArgumentException("Number of violations for summary must be an integer!");
+					}
+					if (summary < 0) throw new IllegalArgumentException("Number of violations for summary must not be negative!");
+					i++;
+					break;
+				case "--memory":
+					if (memory != null) throw new IllegalArgumentException("Memory was already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No memory was provided!");
+					try {
+						memory = Integer.parseInt(args[i+1]);
+					} catch (NumberFormatException e) {
+						throw new IllegalArgumentException("Memory must be an integer!");
+					}
+					if (memory < 1) throw new IllegalArgumentException("Memory must be at least 1!");
+					i++;
+					break;
+				case "--w":
+					if (weight != null) throw new IllegalArgumentException("Weight was already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No weight was provided!");
+					try {
+						weight = Double.parseDouble(args[i+1]);
+					} catch (NumberFormatException e) {
+						throw new IllegalArgumentException("Weight must be a number!");
+					}
+					if (!(weight >= 1) || weight.isInfinite()) throw new IllegalArgumentException("Weight must be at least 1!");
+					i++;
+					break;
+				case "--step":
+					if (step != null) throw new IllegalArgumentException("Step was already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No step was provided!");
+					try {
+						step = Double.parseDouble(args[i+1]);
+					} catch (NumberFormatException e) {
+						throw new IllegalArgumentException("Step must be a number!");
+					}
+					if (!(step > 0)) throw new IllegalArgumentException("Step must be positive!");
+					i++;
+					break;
+				case "--deadline":
+					if (deadline != null) throw new IllegalArgumentException("Deadline was already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No deadline was provided!");
+					try {
+						deadline = Long.parseLong(args[i+1]);
+					} catch (NumberFormatException e) {
+						throw new IllegalArgumentException("Deadline must be an integer!");
+					}
+					if (deadline < 1) throw new IllegalArgumentException("Deadline must be at least 1 millisecond!");
+					i++;
+					break;
+				case "--expansions":
+					if (expansions != null) throw new IllegalArgumentException("Expansions were already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No number of expansions was provided!");
+					try {
+						expansions = Long.parseLong(args[i+1]);
+					} catch (NumberFormatException e) {
+						throw new IllegalArgumentException("Number of expansions must be an integer!");
+					}
+					if (expansions < 1) throw new IllegalArgumentException("Number of expansions must be at least 1!");
+					i++;
+					break;
+				case "--metrics":
+					if (metrics != null) throw new IllegalArgumentException("Metrics flag was already set!");
+					metrics = true;
+					break;
+				case "--external":
+					if (external != null) throw new IllegalArgumentException("External memory budget was already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No external memory budget was provided!");
+					try {
+						external = Integer.parseInt(args[i+1]);
+					} catch (NumberFormatException e) {
+						throw new IllegalArgumentException("External memory budget must be an integer!");
+					}
+					if (external < 1) throw new IllegalArgumentException("External memory budget must be at least 1!");
+					i++;
+					break;
+				case "--prune":
+					if (prune != null) throw new IllegalArgumentException("Prune flag was already set!");
+					prune = true;
+					break;
+				case "--compiled":
+					if (compiled != null) throw new IllegalArgumentException("Compiled flag was already set!");
+					compiled = true;
+					break;
+				case "--compile":
+					if (pathToSnapshot != null) throw new IllegalArgumentException("Path to snapshot was already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No path to snapshot was provided!");
+					pathToSnapshot = args[i+1];
+					i++;
+					break;
+				case "--batch":
+					if (pathToQueries != null) throw new IllegalArgumentException("Path to queries was already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No path to queries was provided!");
+					pathToQueries = args[i+1];
+					i++;
+					break;
+				case "--serve":
+					if (port != null) throw new IllegalArgumentException("Port was already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No port was provided!");
+					try {
+						port = Integer.parseInt(args[i+1]);
+					} catch (NumberFormatException e) {
+						throw new IllegalArgumentException("Port must be an integer!");
+					}
+					if (port < 0 || port > 65535) throw new IllegalArgumentException("Port must be between 0 and 65535!");
+					i++;
+					break;
+				case "--any-heuristic":
+					if (anyHeuristic != null) throw new IllegalArgumentException("Any heuristic flag was already set!");
+					anyHeuristic = true;
+					break;
+				case "--threads":
+					if (threads != null) throw new IllegalArgumentException("Threads were already set!");
+					if (i+1 >= args.length) throw new IllegalArgumentException("No number of threads was provided!");
+					try {
+						threads = Integer.parseInt(args[i+1]);
+					} catch (NumberFormatException e) {
+						throw new IllegalArgumentException("Number of threads must be an integer!");
+					}
+					if (threads < 1) throw new IllegalArgumentException("Number of threads must be at least 1!");
+					i++;
+					break;
 				default:
 					throw new IllegalArgumentException("Unsupported argument: " + args[i]);
 			}
 		}
 		if (checkOptimistic == null) checkOptimistic = false;
 		if (checkConsistent == null) checkConsistent = false;
+		if (compiled == null) compiled = false;
+		if (prune == null) prune = false;
+		if (threads == null) threads = Runtime.getRuntime().availableProcessors();
+		if (metrics == null) metrics = false;
+		if (summary == null) summary = Checker.FULL;
+		if (first == null) first = false;
+		if (anyHeuristic == null) anyHeuristic = false;
+		if (anyHeuristic && port == null) throw new IllegalArgumentException("Any heuristic flag requires server mode!");
+		if (heuristicWeights != null && pathsToHeuristicFunctionDescriptors == null) throw new IllegalArgumentException("Heuristic weights require a heuristic descriptor!");
+		if (heuristicWeights != null && heuristicWeights.length != pathsToHeuristicFunctionDescriptors.size()) throw new IllegalArgumentException("Number of heuristic weights must match the number of heuristic descriptors!");
+		// A* joins the default portfolio only when it has a heuristic
+		if (portfolio == null) portfolio = pathToHeuristicFunctionDescriptor != null || landmarkSpecification != null
+				? List.of("bfs", "ucs", "astar")
+				: List.of("bfs", "ucs");
 	}
 
 	/**
@@ -83,46 +400,400 @@ public class Solution {
 	public static void main(String ... args) throws IOException {
 		parseArgs(args);
 
-		if (algorithm != null) {
+		if (prune) {
+			if (pathToStateSpaceDescriptor == null) throw new IllegalArgumentException("Pruning requires a state space descriptor!");
+			if (StateSpaceSnapshot.isSnapshot(pathToStateSpaceDescriptor)) throw new IllegalArgumentException("Pruning requires a text state space descriptor, a snapshot can be compiled with --prune instead!");
+		}
+
+		if (pathToSnapshot != null) {
+			if (pathToStateSpaceDescriptor == null) throw new IllegalArgumentException("Path to state space descriptor was not provided!");
+			CompiledStateSpace css = compileStateSpaceDescriptor();
+			double[] heuristicTable = pathToHeuristicFunctionDescriptor != null
+					? css.heuristicTable(loadHeuristic())
+					: null;
+			StateSpaceSnapshot.write(pathToSnapshot, css, heuristicTable);
+			System.out.printf("[COMPILED]: %s (%d states, %d transitions%s)%n", pathToSnapshot,
+					css.getStateCount(), css.getTransitionCount(), heuristicTable != null ? ", heuristic" : "");
+		}
+
+		if (pathToLandmarks != null) {
 			if (pathToStateSpaceDescriptor == null) throw new IllegalArgumentException("Path to state space descriptor was not provided!");
-			StateSpaceDescriptor ssd = new StateSpaceDescriptor(pathToStateSpaceDescriptor);
+			if (landmarkSpecification == null) throw new IllegalArgumentException("Number of landmarks was not provided!");
+			Landmarks landmarks = loadLandmarks(loadCompiledStateSpace());
+			landmarks.write(pathToLandmarks);
+			System.out.printf("[LANDMARKS]: %s (%d landmarks)%n", pathToLandmarks, landmarks.getCount());
+		}
+
+		if (pathToSavedHierarchy != null) {
+			if (pathToStateSpaceDescriptor == null) throw new IllegalArgumentException("Path to state space descriptor was not provided!");
+			ContractionHierarchy hierarchy = ContractionHierarchy.build(loadCompiledStateSpace());
+			hierarchy.write(pathToSavedHierarchy);
+			System.out.printf("[HIERARCHY]: %s (%d shortcuts)%n", pathToSavedHierarchy, hierarchy.getShortcutCount());
+		}
+
+		if (algorithm != null) {
+			if (pathToStateSpaceDescriptor == null && stateSpaceSpecification == null) throw new IllegalArgumentException("Path to state space descriptor was not provided!");
+			if (pathToStateSpaceDescriptor != null && stateSpaceSpecification != null) throw new IllegalArgumentException("Only one of state space descriptor and generated state space can be set!");
+			boolean heuristic = algorithm == SearchAlgorithm.ASTAR || algorithm == SearchAlgorithm.IDASTAR || algorithm == SearchAlgorithm.SMASTAR
+					|| algorithm == SearchAlgorithm.HDASTAR || algorithm == SearchAlgorithm.WASTAR || algorithm == SearchAlgorithm.ARASTAR
+					|| algorithm == SearchAlgorithm.LPASTAR || algorithm == SearchAlgorithm.PORTFOLIO && portfolio.contains("astar");
+			boolean bidirectional = algorithm == SearchAlgorithm.BIBFS || algorithm == SearchAlgorithm.BIUCS;
+			if (algorithm == SearchAlgorithm.SMASTAR && memory == null) throw new IllegalArgumentException("Memory was not provided!");
+			if ((algorithm == SearchAlgorithm.WASTAR || algorithm == SearchAlgorithm.ARASTAR) && weight == null) throw new IllegalArgumentException("Weight was not provided!");
+			boolean parallel = algorithm == SearchAlgorithm.HDASTAR || algorithm == SearchAlgorithm.PBFS || algorithm == SearchAlgorithm.CH;
+			if (stateSpaceSpecification != null && (compiled || parallel)) throw new IllegalArgumentException("Compiled search requires a state space descriptor!");
+			if (stateSpaceSpecification != null && bidirectional) throw new IllegalArgumentException("Bidirectional search requires a state space descriptor!");
+			if (stateSpaceSpecification != null && algorithm == SearchAlgorithm.LPASTAR) throw new IllegalArgumentException("Incremental planning requires a state space descriptor!");
+			if (external != null && algorithm != SearchAlgorithm.BFS && algorithm != SearchAlgorithm.UCS) throw new IllegalArgumentException("External memory search supports only bfs and ucs!");
+			if (external != null && compiled) throw new IllegalArgumentException("Only one of compiled and external memory search can be set!");
+			// parallel, anytime, incremental and portfolio searches do not report to a single listener
+			boolean instrumented = !parallel && algorithm != SearchAlgorithm.ARASTAR && algorithm != SearchAlgorithm.LPASTAR && algorithm != SearchAlgorithm.PORTFOLIO;
+			if (metrics && !instrumented) throw new IllegalArgumentException("Metrics are not supported by the " + algorithm.name().toLowerCase() + " search algorithm!");
+
+			SearchMetrics searchMetrics = new SearchMetrics();
+			SearchListener listener = metrics ? searchMetrics : SearchListener.NONE;
+
+			// load the descriptors, a snapshot is already compiled and a generated state space is not loaded at all
+			long parseStart = System.nanoTime();
+			StateSpaceSnapshot snapshot = pathToStateSpaceDescriptor != null && StateSpaceSnapshot.isSnapshot(pathToStateSpaceDescriptor)
+					? StateSpaceSnapshot.load(pathToStateSpaceDescriptor)
+					: null;
+			boolean useCompiled = (compiled || snapshot != null || parallel) && external == null;
+			boolean needsDescriptor = !useCompiled
+					|| (algorithm != SearchAlgorithm.BFS && algorithm != SearchAlgorithm.UCS && algorithm != SearchAlgorithm.ASTAR
+					&& !parallel);
 
+			StateSpace space;
+			StateSpaceDescriptor ssd = null;
+			CompiledStateSpace css = null;
+			if (stateSpaceSpecification != null) {
+				space = StateSpace.of(stateSpaceSpecification);
+			} else if (snapshot != null) {
+				css = snapshot.getStateSpace();
+				ssd = needsDescriptor ? new StateSpaceDescriptor(css) : null;
+				space = ssd;
+			} else {
+				ssd = readStateSpaceDescriptor();
+				css = useCompiled ? compileStateSpaceDescriptor() : null;
+				space = ssd;
+			}
+			// the descriptor hands out its sets of transitions without sorting them
+			Function<String, ? extends Collection<Transition>> successor = ssd != null ? ssd.SUCCESSOR : space != null ? space.successor() : null;
+
+			// the heuristic of a snapshot or a generated state space is used when no heuristic descriptor is given
+			String heuristicName = pathToHeuristicFunctionDescriptor != null ? heuristicName() : null;
+			ToDoubleFunction<String> h = null;
+			double[] heuristicTable = null;
+			if (heuristic) {
+				if (pathToHeuristicFunctionDescriptor != null) {
+					HeuristicFunctionDescriptor hfd = loadHeuristic();
+					heuristicTable = useCompiled ? css.heuristicTable(hfd) : null;
+					h = hfd.HEURISTIC;
+				} else if (snapshot != null && snapshot.getHeuristic() != null) {
+					heuristicName = pathToStateSpaceDescriptor;
+					heuristicTable = snapshot.getHeuristic();
+					h = needsDescriptor ? new HeuristicFunctionDescriptor(css, heuristicTable).HEURISTIC : null;
+				} else if (space != null && space.hasHeuristic()) {
+					heuristicName = stateSpaceSpecification;
+					h = space::getHeuristic;
+				} else if (landmarkSpecification == null) {
+					throw new IllegalArgumentException("Path to heuristic descriptor was not provided!");
+				}
+
+				// the landmark heuristic is used instead of the other heuristic or together with it by taking the larger value
+				if (landmarkSpecification != null) {
+					if (stateSpaceSpecification != null) throw new IllegalArgumentException("Landmark heuristic requires a state space descriptor!");
+					if (css == null) css = compileStateSpaceDescriptor();
+					Landmarks landmarks = loadLandmarks(css);
+					double[] table = landmarks.heuristicTable();
+					for (int s = 0; h != null && s < table.length; s++)
+						table[s] = Math.max(table[s], heuristicTable != null ? heuristicTable[s] : h.applyAsDouble(css.getName(s)));
+
+					CompiledStateSpace compiledSpace = css;
+					heuristicTable = table;
+					h = state -> table[compiledSpace.getId(state)];
+					heuristicName = (heuristicName != null ? heuristicName + "+" : "") + "landmarks:" + landmarks.getCount();
+				}
+			}
+
+			// run the search
+			long searchStart = System.nanoTime();
+			String header;
+			SearchResult result;
+			// anytime search prints every improved solution while it runs
+			boolean streamed = false;
 			switch (algorithm) {
-				case BFS: {
-					System.out.println("# BFS");
-					SearchResult result = Algorithms.bfs(ssd.getInitialState(), ssd.SUCCESSOR_BY_NAME, ssd.GOAL);
-					System.out.println(result);
+				case BFS:
+					header = "# BFS";
+					result = external != null
+							? ExternalMemoryAlgorithms.bfs(space.getInitialState(), space.successor(), space.goal(), external, listener)
+							: useCompiled
+							? CompiledAlgorithms.bfs(css, listener)
+							: Algorithms.bfs(space.getInitialState(), space.successor(), space.goal(), listener);
 					break;
-				}
-				case UCS: {
-					System.out.println("# UCS");
-					SearchResult result = Algorithms.ucs(ssd.getInitialState(), ssd.SUCCESSOR, ssd.GOAL);
+				case UCS:
+					header = "# UCS";
+					result = external != null
+							? ExternalMemoryAlgorithms.ucs(space.getInitialState(), successor, space.goal(), external, listener)
+							: useCompiled
+							? CompiledAlgorithms.ucs(css, listener)
+							: Algorithms.ucs(space.getInitialState(), successor, space.goal(), listener);
+					break;
+				case ASTAR:
+					header = "# A-STAR " + heuristicName;
+					result = useCompiled
+							? CompiledAlgorithms.astar(css, heuristicTable, listener)
+							: Algorithms.astar(space.getInitialState(), successor, space.goal(), h, listener);
+					break;
+				case BIBFS:
+					header = "# BIBFS";
+					result = BidirectionalAlgorithms.bfs(ssd.getInitialState(), ssd.SUCCESSOR_BY_NAME, ssd.PREDECESSOR, ssd.getFinalStates(), listener);
+					break;
+				case BIUCS:
+					header = "# BIUCS";
+					result = BidirectionalAlgorithms.ucs(ssd.getInitialState(), ssd.SUCCESSOR, ssd.PREDECESSOR, ssd.getFinalStates(), listener);
+					break;
+				case IDASTAR:
+					header = "# IDA-STAR " + heuristicName;
+					result = MemoryBoundedAlgorithms.idastar(space.getInitialState(), space.successor(), space.goal(), h, listener);
+					break;
+				case SMASTAR:
+					header = "# SMA-STAR " + heuristicName;
+					result = MemoryBoundedAlgorithms.smastar(space.getInitialState(), space.successor(), space.goal(), h, memory, listener);
+					break;
+				case HDASTAR:
+					header = "# HDA-STAR " + heuristicName;
+					result = ParallelAlgorithms.hdastar(css, heuristicTable, threads);
+					break;
+				case PBFS:
+					header = "# PBFS";
+					result = ParallelAlgorithms.bfs(css, threads);
+					break;
+				case CH:
+					header = "# CH";
+					result = (pathToHierarchy != null ? ContractionHierarchy.load(pathToHierarchy, css) : ContractionHierarchy.build(css)).search();
+					break;
+				case WASTAR:
+					header = "# WA-STAR " + heuristicName;
+					result = Algorithms.wastar(space.getInitialState(), successor, space.goal(), h, weight, listener);
+					break;
+				case ARASTAR:
+					header = "# ARA-STAR " + heuristicName;
+					System.out.println(header);
+					streamed = true;
+					// the conversion saturates and the budget is capped, so the stop time cannot overflow in the wrapping comparison of the search
+					long budgetNanos = deadline == null ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(deadline);
+					long deadlineNanos = System.nanoTime() + Math.min(budgetNanos, Long.MAX_VALUE / 2);
+					result = AnytimeAlgorithms.arastar(space.getInitialState(), successor, space.goal(), h, weight,
+							step == null ? 0.5 : step, deadlineNanos, expansions == null ? Long.MAX_VALUE : expansions,
+							(improved, w, bound) -> System.out.printf("[WEIGHT]: %.2f%n[BOUND]: %.3f%n%s%n", w, bound, improved));
+					break;
+				case LPASTAR:
+					header = "# LPA-STAR " + heuristicName;
+					System.out.println(header);
+					streamed = true;
+					List<List<CostUpdate>> batches = pathToUpdates != null ? CostUpdate.readBatches(pathToUpdates) : List.of();
+					IncrementalPlanner planner = new IncrementalPlanner(ssd, ssd.getInitialState(), h);
+					result = planner.plan();
 					System.out.println(result);
+					// every batch of updates is followed by a replan which repairs the previous one
+					for (List<CostUpdate> batch : batches) {
+						for (CostUpdate update : batch) {
+							try {
+								planner.updateCost(update.getFrom(), update.getTo(), update.getCost());
+							} catch (IllegalArgumentException e) {
+								throw new IllegalArgumentException("Error in cost update on line " + update.getLine() + ": " + e.getMessage());
+							}
+						}
+						result = planner.plan();
+						System.out.printf("[UPDATES]: %d%n%s%n", batch.size(), result);
+					}
+					// the updates changed the shared descriptor, so the later modes read it again
+					if (!batches.isEmpty()) {
+						descriptor = null;
+						compiledDescriptor = null;
+					}
 					break;
-				}
-				case ASTAR: {
-					if (pathToHeuristicFunctionDescriptor == null) throw new IllegalArgumentException("Path to heuristic descriptor was not provided!");
-					HeuristicFunctionDescriptor hfd = new HeuristicFunctionDescriptor(pathToHeuristicFunctionDescriptor);
-					System.out.println("# A-STAR " + pathToHeuristicFunctionDescriptor);
-					SearchResult result = Algorithms.astar(ssd.getInitialState(), ssd.SUCCESSOR, ssd.GOAL, hfd.HEURISTIC);
+				case PORTFOLIO:
+					header = "# PORTFOLIO " + String.join(",", portfolio) + (portfolio.contains("astar") ? " " + heuristicName : "");
+					streamed = true;
+					// the members only read the shared state space, so they run without copies of it
+					List<PortfolioSearch.Member> members = new ArrayList<>();
+					ToDoubleFunction<String> heuristicFunction = h;
+					// A* never reopens closed states, so it is optimal only with a consistent heuristic, which is checked silently
+					boolean consistent = portfolio.contains("astar") && ssd != null && Checker.isConsistent(ssd, h);
+					for (String name : portfolio) {
+						switch (name) {
+							case "bfs":
+								members.add(new PortfolioSearch.Member(name, false, l -> Algorithms.bfs(space.getInitialState(), space.successor(), space.goal(), l)));
+								break;
+							case "ucs":
+								members.add(new PortfolioSearch.Member(name, true, l -> Algorithms.ucs(space.getInitialState(), successor, space.goal(), l)));
+								break;
+							default:
+								members.add(new PortfolioSearch.Member(name, consistent, l -> Algorithms.astar(space.getInitialState(), successor, space.goal(), heuristicFunction, l)));
+						}
+					}
+					PortfolioSearch.Report report = PortfolioSearch.race(members, first);
+					result = report.getResult();
+					System.out.println(header);
+					System.out.println(report);
 					System.out.println(result);
 					break;
-				}
 				default:
 					throw new IllegalArgumentException("Unsupported search algorithm!");
 			}
+
+			// report the result
+			long reportStart = System.nanoTime();
+			if (!streamed) {
+				System.out.println(header);
+				System.out.println(result);
+			} else if (result.getNode().isEmpty() && algorithm == SearchAlgorithm.ARASTAR) {
+				System.out.println(result);
+			}
+			if (metrics) {
+				searchMetrics.setParseNanos(searchStart - parseStart);
+				searchMetrics.setSearchNanos(reportStart - searchStart);
+				searchMetrics.setReportNanos(System.nanoTime() - reportStart);
+				System.out.println(searchMetrics);
+			}
+		}
+
+		if (pathToQueries != null) {
+			if (pathToStateSpaceDescriptor == null) throw new IllegalArgumentException("Path to state space descriptor was not provided!");
+			if (pathsToHeuristicFunctionDescriptors != null && pathsToHeuristicFunctionDescriptors.size() > 1) throw new IllegalArgumentException("Batch search supports only one heuristic descriptor!");
+			List<Query> queries = BatchSearch.readQueries(pathToQueries, pathToHeuristicFunctionDescriptor);
+			BatchSearch search = new BatchSearch(loadStateSpaceDescriptor(), memory);
+			if (pathToHierarchy != null)
+				search.loadHierarchy(pathToHierarchy);
+			for (String answer : search.answerAll(queries, threads))
+				System.out.println(answer);
+		}
+
+		if (port != null) {
+			if (pathToStateSpaceDescriptor == null) throw new IllegalArgumentException("Path to state space descriptor was not provided!");
+			if (pathsToHeuristicFunctionDescriptors != null && pathsToHeuristicFunctionDescriptors.size() > 1) throw new IllegalArgumentException("Batch search supports only one heuristic descriptor!");
+			BatchSearch search = new BatchSearch(loadStateSpaceDescriptor(), memory, SearchServer.CACHE_CAPACITY);
+			if (pathToHeuristicFunctionDescriptor != null)
+				search.preloadHeuristic(pathToHeuristicFunctionDescriptor);
+			if (pathToHierarchy != null)
+				search.loadHierarchy(pathToHierarchy);
+			try (SearchServer server = new SearchServer(search, pathToHeuristicFunctionDescriptor, anyHeuristic, port, threads)) {
+				System.out.println("[LISTENING]: " + server.getPort());
+				server.serve();
+			}
 		}
 
 		if (checkOptimistic) {
 			if (pathToStateSpaceDescriptor == null) throw new IllegalArgumentException("Path to state space descriptor was not provided!");
 			if (pathToHeuristicFunctionDescriptor == null) throw new IllegalArgumentException("Path to heuristic descriptor was not provided!");
-			Checker.checkOptimistic(pathToStateSpaceDescriptor, pathToHeuristicFunctionDescriptor);
+			if (StateSpaceSnapshot.isSnapshot(pathToStateSpaceDescriptor)) throw new IllegalArgumentException("Heuristic checks require a text state space descriptor!");
+			Checker.checkOptimistic(pathToStateSpaceDescriptor, heuristicName(), loadHeuristic(), summary);
 		}
 
 		if (checkConsistent) {
 			if (pathToStateSpaceDescriptor == null) throw new IllegalArgumentException("Path to state space descriptor was not provided!");
 			if (pathToHeuristicFunctionDescriptor == null) throw new IllegalArgumentException("Path to heuristic descriptor was not provided!");
-			Checker.checkConsistent(pathToStateSpaceDescriptor, pathToHeuristicFunctionDescriptor);
+			if (StateSpaceSnapshot.isSnapshot(pathToStateSpaceDescriptor)) throw new IllegalArgumentException("Heuristic checks require a text state space descriptor!");
+			Checker.checkConsistent(pathToStateSpaceDescriptor, heuristicName(), loadHeuristic(), summary);
+		}
+	}
+
+	/**
+	 * Loads the heuristic descriptor. Several descriptors are loaded into the columns of one table
+	 * and combined by their largest value, or by their weighted sum if weights were given.
+	 * @return heuristic function descriptor
+	 * @throws IOException if there is a problem with the provided files
+	 */
+	private static HeuristicFunctionDescriptor loadHeuristic() throws IOException {
+		if (pathsToHeuristicFunctionDescriptors.size() == 1 && heuristicWeights == null)
+			return new HeuristicFunctionDescriptor(pathToHeuristicFunctionDescriptor);
+		HeuristicTable table = HeuristicTable.load(pathsToHeuristicFunctionDescriptors);
+		return heuristicWeights != null ? table.weightedSum(heuristicWeights) : table.max();
+	}
+
+	/**
+	 * Returns the name of the heuristic, which joins the names of the descriptors if there are more.
+	 * @return name of the heuristic
+	 */
+	private static String heuristicName() {
+		if (pathsToHeuristicFunctionDescriptors.size() == 1 && heuristicWeights == null)
+			return pathToHeuristicFunctionDescriptor;
+		StringBuilder sb = new StringBuilder();
+		for (int k = 0; k < pathsToHeuristicFunctionDescriptors.size(); k++) {
+			if (k > 0)
+				sb.append('+');
+			if (heuristicWeights != null)
+				sb.append(heuristicWeights[k]).append('*');
+			sb.append(pathsToHeuristicFunctionDescriptors.get(k));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Loads the compiled state space, compiling the state space descriptor if the path does not point to a snapshot.
+	 * @return compiled state space
+	 * @throws IOException if there is a problem with the provided file
+	 */
+	private static CompiledStateSpace loadCompiledStateSpace() throws IOException {
+		return StateSpaceSnapshot.isSnapshot(pathToStateSpaceDescriptor)
+				? StateSpaceSnapshot.load(pathToStateSpaceDescriptor).getStateSpace()
+				: compileStateSpaceDescriptor();
+	}
+
+	/**
+	 * Selects the given number of landmarks or loads them from the given file.
+	 * Landmarks of the same state space are only selected or loaded once.
+	 * @param css compiled state space
+	 * @return landmarks
+	 * @throws IOException if there is a problem with the provided file
+	 */
+	private static Landmarks loadLandmarks(CompiledStateSpace css) throws IOException {
+		if (lastLandmarks != null && lastLandmarks.getFingerprint() == css.getFingerprint())
+			return lastLandmarks;
+		try {
+			lastLandmarks = Landmarks.select(css, Integer.parseInt(landmarkSpecification));
+		} catch (NumberFormatException e) {
+			lastLandmarks = Landmarks.load(landmarkSpecification, css);
+		}
+		return lastLandmarks;
+	}
+
+	/**
+	 * Reads the text state space descriptor and prunes it if pruning was requested.
+	 * The descriptor is read only once and shared by all modes.
+	 * @return state space descriptor
+	 * @throws IOException if there is a problem with the provided file
+	 */
+	private static StateSpaceDescriptor readStateSpaceDescriptor() throws IOException {
+		if (descriptor == null) {
+			descriptor = new StateSpaceDescriptor(pathToStateSpaceDescriptor);
+			if (prune)
+				System.out.println(descriptor.prune());
 		}
+		return descriptor;
+	}
+
+	/**
+	 * Compiles the text state space descriptor. The compiled state space is built only once.
+	 * @return compiled state space
+	 * @throws IOException if there is a problem with the provided file
+	 */
+	private static CompiledStateSpace compileStateSpaceDescriptor() throws IOException {
+		if (compiledDescriptor == null)
+			compiledDescriptor = new CompiledStateSpace(readStateSpaceDescriptor());
+		return compiledDescriptor;
+	}
+
+	/**
+	 * Loads the state space descriptor, decompiling it if the path points to a snapshot.
+	 * @return state space descriptor
+	 * @throws IOException if there is a problem with the provided file
+	 */
+	private static StateSpaceDescriptor loadStateSpaceDescriptor() throws IOException {
+		return StateSpaceSnapshot.isSnapshot(pathToStateSpaceDescriptor)
+				? new StateSpaceDescriptor(StateSpaceSnapshot.load(pathToStateSpaceDescriptor).getStateSpace())
+				: readStateSpaceDescriptor();
 	}
 }
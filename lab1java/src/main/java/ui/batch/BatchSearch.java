@@ -0,0 +1,309 @@
+package ui.batch;
+
+import ui.Utils;
+import ui.descriptor.CompiledStateSpace;
+import ui.descriptor.HeuristicFunctionDescriptor;
+import ui.descriptor.StateSpaceDescriptor;
+import ui.node.Node;
+import ui.search.Algorithms;
+import ui.search.BidirectionalAlgorithms;
+import ui.search.ContractionHierarchy;
+import ui.search.MemoryBoundedAlgorithms;
+import ui.search.SearchAlgorithm;
+import ui.search.SearchResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Answers many search queries against a single loaded state space. Queries run concurrently
+ * on a thread pool, heuristic descriptors are loaded once and completed results are cached.
+ * A long-lived search bounds the cache and evicts the least recently used results.
+ * <p>
+ * Every suffix of an optimal path found by uniform cost search is an optimal path from its
+ * first state, because a cheaper path from that state would also make the whole path cheaper.
+ * So a uniform cost query from a state on an earlier uniform cost path is answered from the cache.
+ */
+public class BatchSearch {
+    /** State space against which the queries run */
+    private final StateSpaceDescriptor ssd;
+    /** Maximum number of nodes in memory for memory-bounded search, null if not set */
+    private final Integer memory;
+    /** Loaded heuristic descriptors mapped by path */
+    private final ConcurrentMap<String, HeuristicFunctionDescriptor> heuristics = new ConcurrentHashMap<>();
+    /** Results of the queries, a query which is still running maps to an incomplete future */
+    private final Map<Query, CompletableFuture<SearchResult>> results;
+    /** Uniform cost paths mapped by the states on them, each entry holds the node of the state and the goal node */
+    private final Map<String, Node[]> optimalPaths;
+    /** Contraction hierarchy of the state space, built on first use */
+    private ContractionHierarchy hierarchy;
+
+    /**
+     * Constructor which caches every result until the batch is answered.
+     * @param ssd state space against which the queries run
+     * @param memory maximum number of nodes in memory for memory-bounded search, null if not set
+     */
+    public BatchSearch(StateSpaceDescriptor ssd, Integer memory) {
+        this(ssd, memory, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructor which keeps only the most recently used results, for a search which is never done.
+     * @param ssd state space against which the queries run
+     * @param memory maximum number of nodes in memory for memory-bounded search, null if not set
+     * @param capacity maximum number of cached results and of remembered uniform cost path states
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public BatchSearch(StateSpaceDescriptor ssd, Integer memory, int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Cache capacity must be a positive integer!");
+        this.ssd = ssd;
+        this.memory = memory;
+        this.results = Collections.synchronizedMap(new LeastRecentlyUsed<>(capacity));
+        this.optimalPaths = Collections.synchronizedMap(new LeastRecentlyUsed<>(capacity));
+    }
+
+    /**
+     * Reads the queries from a file, one query per line. Empty lines and lines starting with # are skipped.
+     * @param filePath path to the file with queries
+     * @param defaultHeuristic heuristic used when a query does not name one, may be null
+     * @return list of queries in the order of the file
+     * @throws IOException if there is a problem with reading the file
+     * @throws IllegalArgumentException if a query is malformed
+     */
+    public static List<Query> readQueries(String filePath, String defaultHeuristic) throws IOException {
+        List<String> lines = Files.readAllLines(Utils.checkProvidedPath(filePath));
+        List<Query> queries = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            try {
+                queries.add(Query.parse(line, defaultHeuristic));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Error in query on line " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        return queries;
+    }
+
+    /**
+     * Answers the queries concurrently. The cached results are dropped when the batch is answered.
+     * @param queries queries to answer
+     * @param threads number of threads
+     * @return answers in the order of the queries
+     */
+    public List<String> answerAll(List<Query> queries, int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> futures = new ArrayList<>(queries.size());
+            for (Query query : queries)
+                futures.add(pool.submit(() -> answer(query)));
+
+            List<String> answers = new ArrayList<>(queries.size());
+            for (Future<String> future : futures)
+                answers.add(future.get());
+            return answers;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch search was interrupted!");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Query failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+            // the results are only shared by the queries of one batch, so they are not kept alive after it
+            results.clear();
+            optimalPaths.clear();
+        }
+    }
+
+    /**
+     * Answers a single query. The answer has the header of the algorithm, the start state,
+     * a cache marker if the result was not computed for this query and the search result.
+     * Errors of the query are reported in the answer.
+     * @param query query to answer
+     * @return answer to the query
+     */
+    public String answer(Query query) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(header(query)).append('\n');
+        sb.append("[START]: ").append(query.getStart()).append('\n');
+
+        CompletableFuture<SearchResult> future = new CompletableFuture<>();
+        CompletableFuture<SearchResult> previous = results.putIfAbsent(query, future);
+        boolean cached = previous != null;
+        if (previous == null) {
+            try {
+                SearchResult result = query.getAlgorithm() == SearchAlgorithm.UCS ? fromOptimalPath(query.getStart()) : null;
+                cached = result != null;
+                if (result == null) {
+                    result = search(query);
+                    if (query.getAlgorithm() == SearchAlgorithm.UCS)
+                        rememberOptimalPath(result);
+                }
+                future.complete(result);
+            } catch (RuntimeException e) {
+                // the waiting queries get the error, but a later query runs the search again
+                future.completeExceptionally(e);
+                results.remove(query, future);
+            }
+            previous = future;
+        }
+
+        try {
+            SearchResult result = previous.join();
+            if (cached)
+                sb.append("[CACHED]: yes\n");
+            sb.append(result);
+        } catch (CompletionException e) {
+            sb.append("[ERROR]: ").append(e.getCause().getMessage());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Runs the search of the query.
+     * @throws IllegalArgumentException if the start state or the heuristic is not valid
+     */
+    private SearchResult search(Query query) {
+        String s0 = query.getStart();
+        if (!ssd.getTransitions().containsKey(s0) && !ssd.GOAL.test(s0))
+            throw new IllegalArgumentException("State does not exist: " + s0);
+
+        switch (query.getAlgorithm()) {
+            case BFS:
+                return Algorithms.bfs(s0, ssd.SUCCESSOR_BY_NAME, ssd.GOAL);
+            case UCS:
+                return Algorithms.ucs(s0, ssd.SUCCESSOR, ssd.GOAL);
+            case ASTAR:
+                return Algorithms.astar(s0, ssd.SUCCESSOR, ssd.GOAL, heuristic(query.getHeuristic()).HEURISTIC);
+            case BIBFS:
+                return BidirectionalAlgorithms.bfs(s0, ssd.SUCCESSOR_BY_NAME, ssd.PREDECESSOR, ssd.getFinalStates());
+            case BIUCS:
+                return BidirectionalAlgorithms.ucs(s0, ssd.SUCCESSOR, ssd.PREDECESSOR, ssd.getFinalStates());
+            case IDASTAR:
+                return MemoryBoundedAlgorithms.idastar(s0, ssd.SUCCESSOR_BY_NAME, ssd.GOAL, heuristic(query.getHeuristic()).HEURISTIC);
+            case SMASTAR:
+                if (memory == null) throw new IllegalArgumentException("Memory was not provided!");
+                return MemoryBoundedAlgorithms.smastar(s0, ssd.SUCCESSOR_BY_NAME, ssd.GOAL, heuristic(query.getHeuristic()).HEURISTIC, memory);
+            case CH:
+                return hierarchy().search(s0);
+            default:
+                throw new IllegalArgumentException("Unsupported search algorithm!");
+        }
+    }
+
+    /**
+     * Loads the heuristic descriptor of the given path ahead of the first query which uses it.
+     * @param path path to the heuristic descriptor
+     * @throws UncheckedIOException if there is a problem with reading the file
+     */
+    public void preloadHeuristic(String path) {
+        heuristic(path);
+    }
+
+    /**
+     * Loads the contraction hierarchy which answers the contraction hierarchy queries.
+     * Without it the hierarchy is built on the first such query.
+     * @param path path to the contraction hierarchy
+     * @throws IOException if there is a problem with reading the file
+     * @throws IllegalArgumentException if the hierarchy was built for a different state space
+     */
+    public void loadHierarchy(String path) throws IOException {
+        ContractionHierarchy loaded = ContractionHierarchy.load(path, new CompiledStateSpace(ssd));
+        synchronized (this) {
+            hierarchy = loaded;
+        }
+    }
+
+    /**
+     * Returns the contraction hierarchy, building it on first use.
+     */
+    private synchronized ContractionHierarchy hierarchy() {
+        if (hierarchy == null)
+            hierarchy = ContractionHierarchy.build(new CompiledStateSpace(ssd));
+        return hierarchy;
+    }
+
+    /**
+     * Returns the heuristic descriptor of the given path, loading it on first use.
+     */
+    private HeuristicFunctionDescriptor heuristic(String path) {
+        return heuristics.computeIfAbsent(path, p -> {
+            try {
+                return new HeuristicFunctionDescriptor(p);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Remembers every state on the path of a uniform cost result.
+     */
+    private void rememberOptimalPath(SearchResult result) {
+        if (result.getNode().isEmpty())
+            return;
+        Node goal = result.getNode().get();
+        for (Node n = goal.getParent(); n != null; n = n.getParent())
+            optimalPaths.putIfAbsent(n.getState(), new Node[] {n, goal});
+    }
+
+    /**
+     * Creates the result of a uniform cost search from the given state out of a remembered path.
+     * @return result with the suffix of the path or null if no remembered path passes the state
+     */
+    private SearchResult fromOptimalPath(String state) {
+        Node[] entry = optimalPaths.get(state);
+        if (entry == null)
+            return null;
+        Node from = entry[0];
+
+        List<Node> suffix = new ArrayList<>();
+        for (Node n = entry[1]; n != from; n = n.getParent())
+            suffix.add(n);
+        Collections.reverse(suffix);
+
+        Node node = new Node(state);
+        for (Node n : suffix)
+            node = new Node(node, n.getState(), n.getCost() - from.getCost());
+        return new SearchResult(Optional.of(node), 0);
+    }
+
+    /**
+     * Map which evicts the least recently used entry once it holds more than the capacity.
+     */
+    private static final class LeastRecentlyUsed<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+        /** Maximum number of entries */
+        private final int capacity;
+
+        private LeastRecentlyUsed(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    /**
+     * Returns the header of the query, which is the same as the one of a single search.
+     */
+    private static String header(Query query) {
+        switch (query.getAlgorithm()) {
+            case BFS: return "# BFS";
+            case UCS: return "# UCS";
+            case ASTAR: return "# A-STAR " + query.getHeuristic();
+            case BIBFS: return "# BIBFS";
+            case BIUCS: return "# BIUCS";
+            case IDASTAR: return "# IDA-STAR " + query.getHeuristic();
+            case SMASTAR: return "# SMA-STAR " + query.getHeuristic();
+            default: return "# " + query.getAlgorithm();
+        }
+    }
+}
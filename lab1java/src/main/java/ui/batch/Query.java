@@ -0,0 +1,121 @@
+package ui.batch;
+
+import ui.search.SearchAlgorithm;
+
+import java.util.Objects;
+
+/**
+ * Single search query: the state from which to search, the algorithm and the heuristic.
+ */
+public class Query {
+    /** State from which the search starts */
+    private final String start;
+    /** Search algorithm */
+    private final SearchAlgorithm algorithm;
+    /** Path to the heuristic descriptor, null if the algorithm does not use a heuristic */
+    private final String heuristic;
+
+    /**
+     * Constructor.
+     * @param start state from which the search starts
+     * @param algorithm search algorithm
+     * @param heuristic path to the heuristic descriptor, null if the algorithm does not use a heuristic
+     */
+    public Query(String start, SearchAlgorithm algorithm, String heuristic) {
+        this.start = Objects.requireNonNull(start);
+        this.algorithm = Objects.requireNonNull(algorithm);
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Parses a query written as {@code <start> <algorithm> [<heuristic>]}.
+     * @param line line with the query
+     * @param defaultHeuristic heuristic used when the line does not name one, may be null
+     * @return parsed query
+     * @throws IllegalArgumentException if the query is malformed
+     */
+    public static Query parse(String line, String defaultHeuristic) {
+        String[] parts = line.trim().split("\\s+");
+        if (parts.length < 2 || parts.length > 3)
+            throw new IllegalArgumentException("Query must be written as: <start> <algorithm> [<heuristic>]");
+
+        SearchAlgorithm algorithm;
+        try {
+            algorithm = SearchAlgorithm.valueOf(parts[1].toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Algorithm not supported: " + parts[1]);
+        }
+
+        String heuristic = null;
+        if (usesHeuristic(algorithm)) {
+            heuristic = parts.length == 3 ? parts[2] : defaultHeuristic;
+            if (heuristic == null)
+                throw new IllegalArgumentException("Path to heuristic descriptor was not provided!");
+        }
+        return new Query(parts[0], algorithm, heuristic);
+    }
+
+    /**
+     * Checks whether the given algorithm uses a heuristic.
+     * @param algorithm search algorithm
+     * @return true if the algorithm uses a heuristic, false otherwise
+     */
+    public static boolean usesHeuristic(SearchAlgorithm algorithm) {
+        return algorithm == SearchAlgorithm.ASTAR || algorithm == SearchAlgorithm.IDASTAR || algorithm == SearchAlgorithm.SMASTAR;
+    }
+
+    /**
+     * Returns the state from which the search starts.
+     * @return start state
+     */
+    public String getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the search algorithm.
+     * @return search algorithm
+     */
+    public SearchAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the path to the heuristic descriptor.
+     * @return path to the heuristic descriptor, null if the algorithm does not use a heuristic
+     */
+    public String getHeuristic() {
+        return heuristic;
+    }
+
+    /**
+     * Checks whether two queries are equal.
+     * @param o query to check
+     * @return true if equal, otherwise false
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Query query = (Query) o;
+        return start.equals(query.start) && algorithm == query.algorithm && Objects.equals(heuristic, query.heuristic);
+    }
+
+    /**
+     * Returns the hash code of the query.
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(start, algorithm, heuristic);
+    }
+
+    /**
+     * Returns string representation of the query.
+     * @return string representation of the query
+     */
+    @Override
+    public String toString() {
+        return start + " " + algorithm.name().toLowerCase() + (heuristic == null ? "" : " " + heuristic);
+    }
+}
@@ -0,0 +1,110 @@
+package ui.data;
+
+import ui.Utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Change of the cost of the transition between two states.
+ */
+public class CostUpdate {
+    /** Line of the update in its file */
+    private final int line;
+    /** Source state */
+    private final String from;
+    /** Destination state */
+    private final String to;
+    /** New cost, infinite if the transition is removed */
+    private final double cost;
+
+    /**
+     * Constructor.
+     * @param line line of the update in its file
+     * @param from source state
+     * @param to destination state
+     * @param cost new cost, infinite if the transition is removed
+     */
+    public CostUpdate(int line, String from, String to, double cost) {
+        this.line = line;
+        this.from = from;
+        this.to = to;
+        this.cost = cost;
+    }
+
+    /**
+     * Reads batches of cost updates from a file. Every line is written as {@code <from> <to> <cost>},
+     * where the cost {@code inf} removes the transition. Batches are separated by empty lines
+     * and lines starting with # are skipped.
+     * @param filePath path to the file with cost updates
+     * @return batches of cost updates in the order of the file
+     * @throws IOException if there is a problem with reading the file
+     * @throws IllegalArgumentException if an update is malformed
+     */
+    public static List<List<CostUpdate>> readBatches(String filePath) throws IOException {
+        List<String> lines = Files.readAllLines(Utils.checkProvidedPath(filePath));
+        List<List<CostUpdate>> batches = new ArrayList<>();
+        List<CostUpdate> batch = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.startsWith("#"))
+                continue;
+            if (line.isEmpty()) {
+                if (!batch.isEmpty())
+                    batches.add(batch);
+                batch = new ArrayList<>();
+                continue;
+            }
+
+            String[] parts = line.split("\\s+");
+            if (parts.length != 3)
+                throw new IllegalArgumentException("Error in cost update on line " + (i + 1) + ": update must be written as: <from> <to> <cost>");
+            double cost;
+            try {
+                cost = parts[2].equalsIgnoreCase("inf") ? Double.POSITIVE_INFINITY : Double.parseDouble(parts[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Error in cost update on line " + (i + 1) + ": cost must be a number or inf!");
+            }
+            if (!(cost >= 0))
+                throw new IllegalArgumentException("Error in cost update on line " + (i + 1) + ": cost must not be negative!");
+            batch.add(new CostUpdate(i + 1, parts[0], parts[1], cost));
+        }
+        if (!batch.isEmpty())
+            batches.add(batch);
+        return batches;
+    }
+
+    /**
+     * Returns the line of the update in its file.
+     * @return line of the update, starting from 1
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Returns the source state.
+     * @return source state
+     */
+    public String getFrom() {
+        return from;
+    }
+
+    /**
+     * Returns the destination state.
+     * @return destination state
+     */
+    public String getTo() {
+        return to;
+    }
+
+    /**
+     * Returns the new cost.
+     * @return new cost, infinite if the transition is removed
+     */
+    public double getCost() {
+        return cost;
+    }
+}
@@ -0,0 +1,59 @@
+package ui.data;
+
+/**
+ * Numbers of states and transitions which were removed from a state space by pruning.
+ */
+public class PruningReport {
+    /** Number of states before pruning */
+    private final int states;
+    /** Number of states which can not be reached from the initial state */
+    private final int unreachable;
+    /** Number of reachable states from which no final state can be reached */
+    private final int deadEnds;
+    /** Number of transitions before pruning */
+    private final long transitions;
+    /** Number of removed transitions */
+    private final long removedTransitions;
+
+    /**
+     * Constructor.
+     * @param states number of states before pruning
+     * @param unreachable number of states which can not be reached from the initial state
+     * @param deadEnds number of reachable states from which no final state can be reached
+     * @param transitions number of transitions before pruning
+     * @param removedTransitions number of removed transitions
+     */
+    public PruningReport(int states, int unreachable, int deadEnds, long transitions, long removedTransitions) {
+        this.states = states;
+        this.unreachable = unreachable;
+        this.deadEnds = deadEnds;
+        this.transitions = transitions;
+        this.removedTransitions = removedTransitions;
+    }
+
+    /**
+     * Returns the number of removed states.
+     * @return number of removed states
+     */
+    public int getRemovedStates() {
+        return unreachable + deadEnds;
+    }
+
+    /**
+     * Returns the number of removed transitions.
+     * @return number of removed transitions
+     */
+    public long getRemovedTransitions() {
+        return removedTransitions;
+    }
+
+    /**
+     * Returns the line which is printed after pruning.
+     * @return string representation of the report
+     */
+    @Override
+    public String toString() {
+        return String.format("[PRUNED]: removed %d of %d states (%d unreachable, %d dead ends) and %d of %d transitions",
+                getRemovedStates(), states, unreachable, deadEnds, removedTransitions, transitions);
+    }
+}
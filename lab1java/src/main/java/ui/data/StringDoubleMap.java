@@ -0,0 +1,149 @@
+package ui.data;
+
+import java.util.Arrays;
+
+/**
+ * Map from strings to primitive doubles. Entries are stored in two parallel arrays with
+ * open addressing and linear probing, so neither the lookups nor the values are boxed.
+ */
+public class StringDoubleMap {
+    /** Keys of the entries, null marks an empty slot */
+    private String[] keys;
+    /** Values of the entries */
+    private double[] values;
+    /** Number of entries */
+    private int size;
+
+    /**
+     * Initializes an empty map.
+     */
+    public StringDoubleMap() {
+        this(16);
+    }
+
+    /**
+     * Initializes an empty map which can hold the given number of entries without growing.
+     * @param expectedSize expected number of entries
+     */
+    public StringDoubleMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        keys = new String[capacity];
+        values = new double[capacity];
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the map contains the given key.
+     * @param key key to check
+     * @return true if the key is present, false otherwise
+     */
+    public boolean containsKey(String key) {
+        return keys[slot(key)] != null;
+    }
+
+    /**
+     * Returns the value of the given key.
+     * @param key key whose value is returned
+     * @param defaultValue value returned if the key is not present
+     * @return value of the key or the default value
+     */
+    public double get(String key, double defaultValue) {
+        int i = slot(key);
+        return keys[i] != null ? values[i] : defaultValue;
+    }
+
+    /**
+     * Sets the value of the given key, replacing the previous value.
+     * @param key key, must not be null
+     * @param value value
+     */
+    public void put(String key, double value) {
+        int i = slot(key);
+        if (keys[i] == null) {
+            keys[i] = key;
+            if (++size * 2 > keys.length) {
+                values[i] = value;
+                grow();
+                return;
+            }
+        }
+        values[i] = value;
+    }
+
+    /**
+     * Copies all entries of the given map, replacing the values of existing keys.
+     * @param other map whose entries are copied
+     */
+    public void putAll(StringDoubleMap other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != null)
+                put(other.keys[i], other.values[i]);
+        }
+    }
+
+    /**
+     * Returns the keys of the map in no particular order.
+     * @return array of keys
+     */
+    public String[] keys() {
+        String[] result = new String[size];
+        int j = 0;
+        for (String key : keys) {
+            if (key != null)
+                result[j++] = key;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the slot of the given key, or the empty slot where it would be inserted.
+     */
+    private int slot(String key) {
+        int mask = keys.length - 1;
+        int h = key.hashCode() * 0x9E3779B9;
+        int i = (h ^ (h >>> 16)) & mask;
+        while (keys[i] != null && !keys[i].equals(key))
+            i = (i + 1) & mask;
+        return i;
+    }
+
+    /**
+     * Doubles the capacity and reinserts every entry.
+     */
+    private void grow() {
+        String[] oldKeys = keys;
+        double[] oldValues = values;
+        keys = new String[oldKeys.length * 2];
+        values = new double[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Returns string representation of the map.
+     * @return string representation of the map
+     */
+    @Override
+    public String toString() {
+        String[] sorted = keys();
+        Arrays.sort(sorted);
+        StringBuilder sb = new StringBuilder("{");
+        for (String key : sorted) {
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(key).append('=').append(get(key, 0));
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,258 @@
+package ui.descriptor;
+
+import ui.data.Transition;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Compiled form of the state space. State names are interned into dense integer
+ * identifiers and transitions are stored as compressed sparse rows.
+ * <p>
+ * Identifiers are assigned in the order of state names, so comparing two identifiers
+ * gives the same result as comparing the names of the states.
+ * <p>
+ * A state space loaded from a snapshot keeps the names as encoded bytes and decodes
+ * a name only when it is first needed.
+ */
+public class CompiledStateSpace {
+    /** State names indexed by state id, a name which is not decoded yet is null */
+    private final String[] names;
+    /** UTF-8 encoded state names, null if all names are decoded */
+    private final ByteBuffer nameBytes;
+    /** Name of state i is encoded from nameOffsets[i] to nameOffsets[i+1], null if all names are decoded */
+    private final int[] nameOffsets;
+    /** State ids mapped by state name, null if the names are looked up by binary search */
+    private final Map<String, Integer> ids;
+    /** Id of the initial state */
+    private final int initialState;
+    /** Flags which mark final states */
+    private final boolean[] finalStates;
+    /** Transitions of state i are stored from offsets[i] to offsets[i+1] */
+    private final int[] offsets;
+    /** Destination state of each transition */
+    private final int[] targets;
+    /** Cost of each transition */
+    private final double[] costs;
+    /** Hash of the states, final states and transitions, computed on first use */
+    private Long fingerprint;
+
+    /**
+     * Constructor which compiles the given state space descriptor.
+     * @param ssd state space descriptor
+     */
+    public CompiledStateSpace(StateSpaceDescriptor ssd) {
+        // collect every state that is mentioned in the descriptor
+        Set<String> states = new HashSet<>();
+        states.add(ssd.getInitialState());
+        states.addAll(ssd.getFinalStates());
+        for (Map.Entry<String, Set<Transition>> entry : ssd.getTransitions().entrySet()) {
+            states.add(entry.getKey());
+            for (Transition t : entry.getValue())
+                states.add(t.getState());
+        }
+
+        names = states.toArray(new String[0]);
+        Arrays.sort(names);
+        nameBytes = null;
+        nameOffsets = null;
+        ids = index(names);
+
+        initialState = ids.get(ssd.getInitialState());
+        finalStates = new boolean[names.length];
+        for (String state : ssd.getFinalStates())
+            finalStates[ids.get(state)] = true;
+
+        // count the transitions of every state
+        offsets = new int[names.length + 1];
+        for (Map.Entry<String, Set<Transition>> entry : ssd.getTransitions().entrySet())
+            offsets[ids.get(entry.getKey()) + 1] = entry.getValue().size();
+        for (int i = 0; i < names.length; i++)
+            offsets[i + 1] += offsets[i];
+
+        // fill the rows, every row is sorted by destination state and then by cost
+        targets = new int[offsets[names.length]];
+        costs = new double[offsets[names.length]];
+        for (Map.Entry<String, Set<Transition>> entry : ssd.getTransitions().entrySet()) {
+            Transition[] row = entry.getValue().toArray(new Transition[0]);
+            Arrays.sort(row, Transition.BY_NAME.thenComparing(Transition.BY_COST));
+            int offset = offsets[ids.get(entry.getKey())];
+            for (int j = 0; j < row.length; j++) {
+                targets[offset + j] = ids.get(row[j].getState());
+                costs[offset + j] = row[j].getCost();
+            }
+        }
+    }
+
+    /**
+     * Constructor which wraps already compiled arrays and encoded names.
+     * @param nameBytes UTF-8 encoded state names sorted by name
+     * @param nameOffsets offsets of the names in the encoded names
+     * @param initialState id of the initial state
+     * @param finalStates flags which mark final states
+     * @param offsets row offsets
+     * @param targets destination state of each transition
+     * @param costs cost of each transition
+     */
+    CompiledStateSpace(ByteBuffer nameBytes, int[] nameOffsets, int initialState, boolean[] finalStates, int[] offsets, int[] targets, double[] costs) {
+        this.names = new String[nameOffsets.length - 1];
+        this.nameBytes = nameBytes;
+        this.nameOffsets = nameOffsets;
+        this.ids = null;
+        this.initialState = initialState;
+        this.finalStates = finalStates;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.costs = costs;
+    }
+
+    /**
+     * Maps every name to its index.
+     */
+    private static Map<String, Integer> index(String[] names) {
+        Map<String, Integer> ids = new HashMap<>(names.length * 4 / 3 + 1);
+        for (int i = 0; i < names.length; i++)
+            ids.put(names[i], i);
+        return ids;
+    }
+
+    /**
+     * Returns the number of states.
+     * @return number of states
+     */
+    public int getStateCount() {
+        return names.length;
+    }
+
+    /**
+     * Returns the number of transitions.
+     * @return number of transitions
+     */
+    public int getTransitionCount() {
+        return targets.length;
+    }
+
+    /**
+     * Returns the id of the given state.
+     * @param state state name
+     * @return id of the state or -1 if there is no such state
+     */
+    public int getId(String state) {
+        if (ids != null) {
+            Integer id = ids.get(state);
+            return id == null ? -1 : id;
+        }
+        // names are sorted, so only the names on the way of a binary search are decoded
+        int low = 0, high = names.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = getName(mid).compareTo(state);
+            if (c == 0)
+                return mid;
+            if (c < 0)
+                low = mid + 1;
+            else
+                high = mid - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the name of the state with the given id.
+     * @param id state id
+     * @return state name
+     */
+    public String getName(int id) {
+        String name = names[id];
+        if (name == null) {
+            // names are immutable, so threads which decode the same name at the same time only repeat the work
+            byte[] bytes = new byte[nameOffsets[id + 1] - nameOffsets[id]];
+            nameBytes.get(nameOffsets[id], bytes);
+            name = new String(bytes, StandardCharsets.UTF_8);
+            names[id] = name;
+        }
+        return name;
+    }
+
+    /**
+     * Returns the id of the initial state.
+     * @return id of the initial state
+     */
+    public int getInitialState() {
+        return initialState;
+    }
+
+    /**
+     * Checks whether the state with the given id is final.
+     * @param id state id
+     * @return true if the state is final, false otherwise
+     */
+    public boolean isFinal(int id) {
+        return finalStates[id];
+    }
+
+    /**
+     * Returns the row offsets. Transitions of state i are stored
+     * from offsets[i] (inclusive) to offsets[i+1] (exclusive).
+     * @return row offsets
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Returns the destination state of every transition.
+     * @return destination states
+     */
+    public int[] getTargets() {
+        return targets;
+    }
+
+    /**
+     * Returns the cost of every transition.
+     * @return transition costs
+     */
+    public double[] getCosts() {
+        return costs;
+    }
+
+    /**
+     * Returns a hash of the state names, the final states and the transitions, which is stored
+     * in the files derived from the state space to recognize the state space they belong to.
+     * @return fingerprint of the state space
+     */
+    public synchronized long getFingerprint() {
+        if (fingerprint == null) {
+            long h = mix(0xcbf29ce484222325L, names.length);
+            for (int i = 0; i < names.length; i++)
+                h = mix(mix(h, getName(i).hashCode()), finalStates[i] ? 1 : 0);
+            for (int offset : offsets)
+                h = mix(h, offset);
+            for (int e = 0; e < targets.length; e++)
+                h = mix(mix(h, targets[e]), Double.doubleToLongBits(costs[e]));
+            fingerprint = h;
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Adds the value to the hash.
+     */
+    private static long mix(long h, long value) {
+        return (h ^ value) * 0x100000001b3L;
+    }
+
+    /**
+     * Creates a table of heuristic values indexed by state id.
+     * @param hfd heuristic function descriptor
+     * @return heuristic values indexed by state id
+     * @throws IllegalArgumentException if the heuristic is missing for some state
+     */
+    public double[] heuristicTable(HeuristicFunctionDescriptor hfd) {
+        double[] h = new double[names.length];
+        for (int i = 0; i < names.length; i++)
+            h[i] = hfd.getHeuristic(getName(i));
+        return h;
+    }
+}
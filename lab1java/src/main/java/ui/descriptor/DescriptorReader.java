@@ -0,0 +1,336 @@
+package ui.descriptor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reads descriptor files directly from memory mapped bytes. Lines are tokenized in place,
+ * and big files are split on line boundaries into chunks which are parsed in parallel.
+ */
+final class DescriptorReader {
+    /** Files smaller than this are parsed as a single chunk */
+    private static final int MIN_CHUNK = 1 << 20;
+    /** Upper bound for the size of a single chunk */
+    private static final int MAX_CHUNK = 1 << 28;
+    /** Powers of ten which are exactly representable as doubles */
+    private static final double[] POW10 = new double[23];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++)
+            POW10[i] = POW10[i - 1] * 10;
+    }
+
+    private DescriptorReader() {
+    }
+
+    /**
+     * Maps the beginning of the file, which holds the header lines.
+     * @param channel file channel
+     * @return cursor over the beginning of the file
+     * @throws IOException if there is a problem with reading the file
+     */
+    static Cursor head(FileChannel channel) throws IOException {
+        long size = Math.min(channel.size(), MAX_CHUNK);
+        return new Cursor(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+    }
+
+    /**
+     * Splits the file from the given position to its end into chunks which end on line
+     * boundaries, parses them in parallel and returns the results in file order.
+     * @param channel file channel
+     * @param from position of the first byte
+     * @param parser parser of a single chunk
+     * @param <T> type of chunk result
+     * @return results of all chunks in file order
+     * @throws IOException if there is a problem with reading the file
+     */
+    static <T> List<T> parse(FileChannel channel, long from, Function<Cursor, T> parser) throws IOException {
+        long size = channel.size();
+        long chunkSize = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK,
+                (size - from) / (4L * Runtime.getRuntime().availableProcessors()) + 1));
+
+        List<Cursor> chunks = new ArrayList<>();
+        long start = from;
+        while (start < size) {
+            long end = lineBoundary(channel, start + chunkSize, size);
+            if (end - start > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Line is too long at position: " + start);
+            chunks.add(new Cursor(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)));
+            start = end;
+        }
+
+        if (chunks.size() == 1)
+            return List.of(parser.apply(chunks.get(0)));
+        return chunks.parallelStream().map(parser).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the position right after the first line feed at or after the given position.
+     */
+    private static long lineBoundary(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        while (position < size) {
+            buf.clear();
+            int read = channel.read(buf, position);
+            if (read <= 0)
+                break;
+            for (int i = 0; i < read; i++) {
+                if (buf.get(i) == '\n')
+                    return position + i + 1;
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Parses a decimal number. Plain decimals are converted exactly without creating a string,
+     * other formats fall back to {@link Double#parseDouble(String)}.
+     * @param buf buffer
+     * @param start index of the first byte
+     * @param end index after the last byte
+     * @return parsed number
+     * @throws NumberFormatException if the bytes are not a number
+     */
+    static double parseDouble(ByteBuffer buf, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buf.get(i) == '-' || buf.get(i) == '+'))
+            negative = buf.get(i++) == '-';
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean dot = false;
+        for (; i < end; i++) {
+            byte b = buf.get(i);
+            if (b >= '0' && b <= '9') {
+                if (++digits > 15)
+                    return Double.parseDouble(string(buf, start, end));
+                mantissa = mantissa * 10 + (b - '0');
+                if (dot)
+                    scale++;
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else {
+                return Double.parseDouble(string(buf, start, end));
+            }
+        }
+        if (digits == 0)
+            return Double.parseDouble(string(buf, start, end));
+
+        // both operands are exact, so the division is correctly rounded
+        double value = scale == 0 ? mantissa : mantissa / POW10[scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Decodes the given bytes as UTF-8 string.
+     */
+    static String string(ByteBuffer buf, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buf.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Cursor which walks over the lines and tokens of a mapped chunk. Comment lines,
+     * which start with '#', and blank lines are skipped.
+     */
+    static final class Cursor {
+        /** Mapped bytes */
+        private final ByteBuffer buf;
+        /** Current position */
+        private int pos;
+        /** Index after the last byte of the current line */
+        private int lineEnd;
+        /** Index of the first byte of the current token */
+        int start;
+        /** Index after the last byte of the current token */
+        int end;
+
+        /**
+         * Constructor.
+         * @param buf mapped bytes
+         */
+        Cursor(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        /**
+         * Returns the mapped bytes.
+         * @return mapped bytes
+         */
+        ByteBuffer buffer() {
+            return buf;
+        }
+
+        /**
+         * Returns the position after the current line.
+         * @return position after the current line
+         */
+        int position() {
+            return lineEnd;
+        }
+
+        /**
+         * Moves to the next line which is neither a comment nor blank.
+         * @return true if there is such a line, false at the end of the chunk
+         */
+        boolean nextLine() {
+            int limit = buf.limit();
+            pos = lineEnd;
+            while (pos < limit) {
+                int lineStart = pos;
+                while (pos < limit && buf.get(pos) != '\n' && buf.get(pos) != '\r')
+                    pos++;
+                int endOfLine = pos;
+                // skip the line terminator
+                if (pos < limit)
+                    pos++;
+
+                if (buf.get(lineStart) == '#')
+                    continue;
+                for (int i = lineStart; i < endOfLine; i++) {
+                    if (buf.get(i) > ' ') {
+                        lineEnd = pos;
+                        pos = i;
+                        return true;
+                    }
+                }
+            }
+            lineEnd = limit;
+            return false;
+        }
+
+        /**
+         * Moves to the next token of the current line.
+         * @return true if there is a token, false at the end of the line
+         */
+        boolean nextToken() {
+            while (pos < lineEnd && buf.get(pos) <= ' ')
+                pos++;
+            if (pos >= lineEnd)
+                return false;
+            start = pos;
+            while (pos < lineEnd && buf.get(pos) > ' ')
+                pos++;
+            end = pos;
+            return true;
+        }
+
+        /**
+         * Returns the index of the given byte within the current token.
+         * @param b byte to find
+         * @return index of the byte or -1 if the token does not contain it
+         */
+        int indexOf(byte b) {
+            for (int i = start; i < end; i++) {
+                if (buf.get(i) == b)
+                    return i;
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the current token as string.
+         * @return current token
+         */
+        String token() {
+            return string(buf, start, end);
+        }
+    }
+
+    /**
+     * Open addressing table which maps the bytes of a state name to a single string instance,
+     * so repeated names are decoded only once.
+     */
+    static final class NameTable {
+        /** Encoded names */
+        private byte[][] keys = new byte[1024][];
+        /** Decoded names */
+        private String[] values = new String[1024];
+        /** Number of names */
+        private int size;
+
+        /**
+         * Returns the string for the given bytes.
+         * @param buf buffer
+         * @param start index of the first byte
+         * @param end index after the last byte
+         * @return decoded name
+         */
+        String get(ByteBuffer buf, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++)
+                hash = 31 * hash + buf.get(i);
+
+            int mask = keys.length - 1;
+            int slot = mix(hash) & mask;
+            while (keys[slot] != null) {
+                if (matches(keys[slot], buf, start, end))
+                    return values[slot];
+                slot = (slot + 1) & mask;
+            }
+
+            byte[] key = new byte[end - start];
+            buf.get(start, key);
+            String value = new String(key, StandardCharsets.UTF_8);
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size * 2 > keys.length)
+                grow();
+            return value;
+        }
+
+        /**
+         * Spreads the bits of the hash.
+         */
+        private static int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        /**
+         * Checks whether the key equals the given bytes.
+         */
+        private static boolean matches(byte[] key, ByteBuffer buf, int start, int end) {
+            if (key.length != end - start)
+                return false;
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buf.get(start + i))
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Doubles the capacity of the table.
+         */
+        private void grow() {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            values = new String[oldValues.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == null)
+                    continue;
+                int hash = 0;
+                for (byte b : oldKeys[i])
+                    hash = 31 * hash + b;
+                int slot = mix(hash) & mask;
+                while (keys[slot] != null)
+                    slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
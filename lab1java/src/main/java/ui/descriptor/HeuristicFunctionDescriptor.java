@@ -1,20 +1,21 @@
 package ui.descriptor;
 
 import ui.Utils;
+import ui.data.StringDoubleMap;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
-import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Class that models heuristic functions.
  */
 public class HeuristicFunctionDescriptor {
     /** Map that stores heuristics for all states */
-    private Map<String, Double> heuristics;
+    private StringDoubleMap heuristics;
 
     /**
      * Constructor which initializes the heuristics from provided file.
@@ -26,33 +27,95 @@ public class HeuristicFunctionDescriptor {
         // check provided file path
         Path path = Utils.checkProvidedPath(filePath);
 
-        // load the file while removing comments
-        List<String> lines = Files.readAllLines(path)
-                .stream()
-                .filter(line -> !line.startsWith("#"))
-                .map(String::trim)
-                .collect(Collectors.toList());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            heuristics = null;
+            for (StringDoubleMap chunk : DescriptorReader.parse(channel, 0, HeuristicFunctionDescriptor::parseHeuristics)) {
+                if (heuristics == null)
+                    heuristics = chunk;
+                else
+                    heuristics.putAll(chunk);
+            }
+        }
+        if (heuristics == null)
+            heuristics = new StringDoubleMap();
+    }
+
+    /**
+     * Constructor which initializes the heuristics from a table indexed by state id.
+     * @param css compiled state space
+     * @param h heuristic values indexed by state id
+     */
+    public HeuristicFunctionDescriptor(CompiledStateSpace css, double[] h) {
+        heuristics = new StringDoubleMap(css.getStateCount());
+        for (int s = 0; s < css.getStateCount(); s++)
+            heuristics.put(css.getName(s), h[s]);
+    }
 
-        heuristics = new HashMap<>();
+    /**
+     * Constructor which initializes the heuristics from parallel arrays of states and values.
+     * @param states states
+     * @param h heuristic value of the state at the same index
+     */
+    public HeuristicFunctionDescriptor(String[] states, double[] h) {
+        heuristics = new StringDoubleMap(states.length);
+        for (int s = 0; s < states.length; s++)
+            heuristics.put(states[s], h[s]);
+    }
+
+    /**
+     * Parses the heuristic lines of a single chunk.
+     * @param cursor cursor over the chunk
+     * @return heuristics mapped by state
+     * @throws IllegalArgumentException if a line is malformed
+     */
+    private static StringDoubleMap parseHeuristics(DescriptorReader.Cursor cursor) {
+        ByteBuffer buf = cursor.buffer();
+        StringDoubleMap heuristics = new StringDoubleMap();
 
-        // parse the lines
-        for (int i = 0, n = lines.size(); i < n; i++) {
-            String[] s = lines.get(i).split(" ");
+        while (cursor.nextLine()) {
+            cursor.nextToken();
             // remove the colon from the state name
-            heuristics.put(s[0].substring(0, s[0].length() - 1), Double.parseDouble(s[1]));
+            int end = buf.get(cursor.end - 1) == ':' ? cursor.end - 1 : cursor.end;
+            String state = DescriptorReader.string(buf, cursor.start, end);
+            if (!cursor.nextToken())
+                throw new IllegalArgumentException("Heuristic is missing for state: " + state);
+            heuristics.put(state, DescriptorReader.parseDouble(buf, cursor.start, cursor.end));
         }
+        return heuristics;
     }
 
     /**
-     * Returns the heuristics
-     * @return map of heuristics
+     * Returns the states for which the heuristic is defined.
+     * @return array of states in no particular order
      */
-    public Map<String, Double> getHeuristics() {
-        return heuristics;
+    public String[] getStates() {
+        return heuristics.keys();
+    }
+
+    /**
+     * Checks whether the heuristic is defined for the given state.
+     * @param state state to check
+     * @return true if the heuristic is defined, false otherwise
+     */
+    public boolean hasHeuristic(String state) {
+        return heuristics.containsKey(state);
+    }
+
+    /**
+     * Returns the heuristic for the given state.
+     * @param state state for which to return the heuristic
+     * @return heuristic value
+     * @throws IllegalArgumentException if the heuristic is not defined for the state
+     */
+    public double getHeuristic(String state) {
+        double h = heuristics.get(state, Double.NaN);
+        if (Double.isNaN(h) && !heuristics.containsKey(state))
+            throw new IllegalArgumentException("Heuristic is not defined for state: " + state);
+        return h;
     }
 
     /**
      * Returns the heuristic for the given state
      */
-    public final Function<String, Double> HEURISTIC = state -> getHeuristics().get(state);
+    public final ToDoubleFunction<String> HEURISTIC = this::getHeuristic;
 }
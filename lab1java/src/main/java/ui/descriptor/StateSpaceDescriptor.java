@@ -1,11 +1,15 @@
 package ui.descriptor;
 
 import ui.Utils;
+import ui.data.PruningReport;
 import ui.data.Transition;
+import ui.space.StateSpace;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -14,13 +18,15 @@ import java.util.stream.Collectors;
 /**
  * Class that models the state space.
  */
-public class StateSpaceDescriptor {
+public class StateSpaceDescriptor implements StateSpace {
     /** Initial state */
     private String initialState;
     /** Set of final states */
     private Set<String> finalStates;
     /** Transitions between states */
     private Map<String, Set<Transition>> transitions;
+    /** Reverse transitions, built on first use */
+    private Map<String, Set<Transition>> reverseTransitions;
 
     /**
      * Constructor which initializes the state space from a file.
@@ -32,45 +38,113 @@ public class StateSpaceDescriptor {
         // check provided file path
         Path path = Utils.checkProvidedPath(filePath);
 
-        // load the file while removing comments
-        List<String> lines = Files.readAllLines(path)
-                .stream()
-                .filter(line -> !line.startsWith("#"))
-                .map(String::trim)
-                .collect(Collectors.toList());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // parse the initial state and the final states
+            DescriptorReader.Cursor head = DescriptorReader.head(channel);
+            if (!head.nextLine() || !head.nextToken())
+                throw new IllegalArgumentException("File must contain at least 3 lines: initial state, final states and transitions!");
+            initialState = head.token();
+            if (!head.nextLine())
+                throw new IllegalArgumentException("File must contain at least 3 lines: initial state, final states and transitions!");
+            finalStates = new HashSet<>();
+            while (head.nextToken())
+                finalStates.add(head.token());
 
-        if (lines.size() < 3)
+            // parse the transitions, later lines override earlier ones like in a sequential read
+            transitions = null;
+            for (Map<String, Set<Transition>> chunk : DescriptorReader.parse(channel, head.position(), StateSpaceDescriptor::parseTransitions)) {
+                if (transitions == null)
+                    transitions = chunk;
+                else
+                    transitions.putAll(chunk);
+            }
+        }
+
+        if (transitions == null || transitions.isEmpty())
             throw new IllegalArgumentException("File must contain at least 3 lines: initial state, final states and transitions!");
+    }
 
-        // parse the lines
-        initialState = lines.get(0);
-        finalStates = Arrays.stream(lines.get(1).split(" ")).collect(Collectors.toCollection(HashSet::new));
+    /**
+     * Constructor which initializes the state space from a compiled state space.
+     * Every state gets an entry in the map of transitions.
+     * @param css compiled state space
+     */
+    public StateSpaceDescriptor(CompiledStateSpace css) {
+        int[] offsets = css.getOffsets();
+        int[] targets = css.getTargets();
+        double[] costs = css.getCosts();
 
-        transitions = new HashMap<>();
-        for (int i = 0, n = lines.size(); i < n; i++) {
-            if (i == 0 || i == 1)
-                continue;
+        initialState = css.getName(css.getInitialState());
+        finalStates = new HashSet<>();
+        transitions = new HashMap<>(css.getStateCount() * 4 / 3 + 1);
+        for (int s = 0; s < css.getStateCount(); s++) {
+            if (css.isFinal(s))
+                finalStates.add(css.getName(s));
+            Set<Transition> row = new HashSet<>();
+            for (int e = offsets[s]; e < offsets[s + 1]; e++)
+                row.add(new Transition(css.getName(targets[e]), costs[e]));
+            transitions.put(css.getName(s), row);
+        }
+    }
 
-            String[] l = lines.get(i).split(" ");
-            String state = l[0].substring(0, l[0].length() - 1); // remove the colon
+    /**
+     * Parses the transition lines of a single chunk.
+     * @param cursor cursor over the chunk
+     * @return transitions mapped by source state
+     * @throws IllegalArgumentException if a transition is malformed
+     */
+    private static Map<String, Set<Transition>> parseTransitions(DescriptorReader.Cursor cursor) {
+        ByteBuffer buf = cursor.buffer();
+        DescriptorReader.NameTable names = new DescriptorReader.NameTable();
+        Map<String, Set<Transition>> transitions = new HashMap<>();
+
+        while (cursor.nextLine()) {
+            cursor.nextToken();
+            // remove the colon
+            int end = buf.get(cursor.end - 1) == ':' ? cursor.end - 1 : cursor.end;
+            String state = names.get(buf, cursor.start, end);
 
             Set<Transition> t = new HashSet<>();
-            for (int j = 1; j < l.length; j++) {
-                String[] s = l[j].split(",");
-                t.add(new Transition(s[0], Double.parseDouble(s[1])));
+            while (cursor.nextToken()) {
+                int comma = cursor.indexOf((byte) ',');
+                if (comma < 0)
+                    throw new IllegalArgumentException("Transition must be in format state,cost! It was: " + cursor.token());
+                t.add(new Transition(names.get(buf, cursor.start, comma), DescriptorReader.parseDouble(buf, comma + 1, cursor.end)));
             }
-            this.transitions.put(state, t);
+            transitions.put(state, t);
         }
+        return transitions;
     }
 
     /**
      * Returns the initial state.
      * @return initial state
      */
+    @Override
     public String getInitialState() {
         return initialState;
     }
 
+    /**
+     * Checks whether the given state is in the set of final states.
+     * @param state state to check
+     * @return true if the state is final, false otherwise
+     */
+    @Override
+    public boolean isGoal(String state) {
+        return finalStates.contains(state);
+    }
+
+    /**
+     * Returns the transitions of the given state sorted by state name.
+     * @param state state whose transitions are returned
+     * @return transitions sorted by state name
+     */
+    @Override
+    public List<Transition> getSuccessors(String state) {
+        return SUCCESSOR_BY_NAME.apply(state);
+    }
+
     /**
      * Returns unmodifiable set of final states.
      * @return set of final states
@@ -87,6 +161,121 @@ public class StateSpaceDescriptor {
         return transitions;
     }
 
+    /**
+     * Returns map of reverse transitions. For every state it holds the transitions
+     * from which it can be reached, each with the source state and the cost.
+     * The map is built on the first call.
+     * @return map of reverse transitions
+     */
+    public synchronized Map<String, Set<Transition>> getReverseTransitions() {
+        if (reverseTransitions == null) {
+            Map<String, Set<Transition>> reverse = new HashMap<>();
+            for (Map.Entry<String, Set<Transition>> entry : transitions.entrySet()) {
+                for (Transition t : entry.getValue()) {
+                    reverse.computeIfAbsent(t.getState(), s -> new HashSet<>())
+                            .add(new Transition(entry.getKey(), t.getCost()));
+                }
+            }
+            reverseTransitions = reverse;
+        }
+        return reverseTransitions;
+    }
+
+    /**
+     * Removes the states which are not on any path from the initial state to a final state,
+     * which are the states not reached from the initial state and the states from which
+     * no final state can be reached, together with all their transitions. The initial state
+     * is always kept, so a search on a state space without solution still starts and fails.
+     * @return numbers of removed states and transitions
+     */
+    public synchronized PruningReport prune() {
+        Set<String> states = new HashSet<>(transitions.keySet());
+        states.addAll(finalStates);
+        states.add(initialState);
+        long transitionCount = 0;
+        for (Set<Transition> row : transitions.values()) {
+            transitionCount += row.size();
+            for (Transition t : row)
+                states.add(t.getState());
+        }
+
+        // forward from the initial state
+        Set<String> reached = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        reached.add(initialState);
+        queue.add(initialState);
+        while (!queue.isEmpty()) {
+            for (Transition t : transitions.getOrDefault(queue.poll(), Collections.emptySet())) {
+                if (reached.add(t.getState()))
+                    queue.add(t.getState());
+            }
+        }
+
+        // backward from the final states, only through the reached states
+        Map<String, Set<Transition>> reverse = getReverseTransitions();
+        Set<String> kept = new HashSet<>();
+        for (String state : finalStates) {
+            if (reached.contains(state) && kept.add(state))
+                queue.add(state);
+        }
+        while (!queue.isEmpty()) {
+            for (Transition t : reverse.getOrDefault(queue.poll(), Collections.emptySet())) {
+                if (reached.contains(t.getState()) && kept.add(t.getState()))
+                    queue.add(t.getState());
+            }
+        }
+        kept.add(initialState);
+
+        long removedTransitions = 0;
+        Map<String, Set<Transition>> pruned = new HashMap<>(kept.size() * 4 / 3 + 1);
+        for (Map.Entry<String, Set<Transition>> entry : transitions.entrySet()) {
+            if (!kept.contains(entry.getKey())) {
+                removedTransitions += entry.getValue().size();
+                continue;
+            }
+            Set<Transition> row = new HashSet<>();
+            for (Transition t : entry.getValue()) {
+                if (kept.contains(t.getState()))
+                    row.add(t);
+                else
+                    removedTransitions++;
+            }
+            pruned.put(entry.getKey(), row);
+        }
+        transitions = pruned;
+        finalStates.retainAll(kept);
+        reverseTransitions = null;
+
+        int unreachable = states.size() - reached.size();
+        return new PruningReport(states.size(), unreachable, states.size() - unreachable - kept.size(), transitionCount, removedTransitions);
+    }
+
+    /**
+     * Changes the cost of the transition from one state to another. Every transition between
+     * the two states is replaced by a single transition with the given cost, which adds the
+     * transition if there was none. The reverse transitions are kept in sync.
+     * @param from source state
+     * @param to destination state
+     * @param cost new cost, or infinity to remove the transition
+     * @throws IllegalArgumentException if one of the states does not exist or the cost is negative or not a number
+     */
+    public synchronized void updateTransition(String from, String to, double cost) {
+        if (!transitions.containsKey(from)) throw new IllegalArgumentException("Source state does not exist: " + from + "!");
+        if (!transitions.containsKey(to)) throw new IllegalArgumentException("Destination state does not exist: " + to + "!");
+        if (!(cost >= 0)) throw new IllegalArgumentException("Transition cost must not be negative!");
+        Set<Transition> row = transitions.computeIfAbsent(from, s -> new HashSet<>());
+        row.removeIf(t -> t.getState().equals(to));
+        if (cost < Double.POSITIVE_INFINITY)
+            row.add(new Transition(to, cost));
+
+        if (reverseTransitions != null) {
+            Set<Transition> reverse = reverseTransitions.computeIfAbsent(to, s -> new HashSet<>());
+            reverse.removeIf(t -> t.getState().equals(from));
+            if (cost < Double.POSITIVE_INFINITY)
+                reverse.add(new Transition(from, cost));
+        }
+    }
+
     /**
      * Returns list of successors based on given state sorted by state name.
      */
@@ -101,6 +290,12 @@ public class StateSpaceDescriptor {
     public final Function<String, Set<Transition>> SUCCESSOR = state ->
             getTransitions().get(state);
 
+    /**
+     * Returns set of predecessors based on given state
+     */
+    public final Function<String, Set<Transition>> PREDECESSOR = state ->
+            getReverseTransitions().getOrDefault(state, Collections.emptySet());
+
     /**
      * Checks whether the given state is in the set of final states.
      */
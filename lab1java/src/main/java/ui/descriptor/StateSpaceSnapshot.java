@@ -0,0 +1,264 @@
+package ui.descriptor;
+
+import ui.Utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Versioned binary snapshot of a compiled state space with an optional heuristic column.
+ * <p>
+ * The file starts with a fixed header which holds the magic number, the version, the counts
+ * and the offsets of all sections. Sections are 8 byte aligned, stored in little endian
+ * byte order and loaded through memory mapping. The numeric sections are copied into arrays
+ * in bulk, while the names stay mapped and are decoded when they are first needed:
+ * <ol>
+ *     <li>name offsets, int[states + 1] into the name bytes</li>
+ *     <li>name bytes, UTF-8 encoded state names sorted by name</li>
+ *     <li>final state bitmap, long[(states + 63) / 64]</li>
+ *     <li>row offsets, int[states + 1]</li>
+ *     <li>transition targets, int[transitions]</li>
+ *     <li>transition costs, double[transitions]</li>
+ *     <li>heuristic values, double[states], only if the heuristic flag is set</li>
+ * </ol>
+ */
+public class StateSpaceSnapshot {
+    /** Magic number at the start of every snapshot, "UUIS" */
+    private static final int MAGIC = 0x53495555;
+    /** Current version of the format */
+    private static final int VERSION = 1;
+    /** Flag which marks that the snapshot contains heuristic values */
+    private static final int HAS_HEURISTIC = 1;
+    /** Number of sections */
+    private static final int SECTIONS = 7;
+    /** Size of the header in bytes */
+    private static final int HEADER = 24 + 8 * SECTIONS;
+
+    /** Compiled state space */
+    private final CompiledStateSpace stateSpace;
+    /** Heuristic values indexed by state id, null if not present */
+    private final double[] heuristic;
+
+    /**
+     * Constructor.
+     * @param stateSpace compiled state space
+     * @param heuristic heuristic values indexed by state id, null if not present
+     */
+    private StateSpaceSnapshot(CompiledStateSpace stateSpace, double[] heuristic) {
+        this.stateSpace = stateSpace;
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Returns the compiled state space.
+     * @return compiled state space
+     */
+    public CompiledStateSpace getStateSpace() {
+        return stateSpace;
+    }
+
+    /**
+     * Returns the heuristic values indexed by state id.
+     * @return heuristic values or null if the snapshot has no heuristic
+     */
+    public double[] getHeuristic() {
+        return heuristic;
+    }
+
+    /**
+     * Checks whether the given file starts with the snapshot magic number.
+     * @param filePath path to file
+     * @return true if the file is a snapshot, false otherwise
+     * @throws IOException if there is a problem with reading the file
+     * @throws IllegalArgumentException if there is a problem with the file path
+     */
+    public static boolean isSnapshot(String filePath) throws IOException {
+        Path path = Utils.checkProvidedPath(filePath);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (buf.hasRemaining() && channel.read(buf) > 0) {
+                // read until the magic number is complete or the file ends
+            }
+            return !buf.hasRemaining() && buf.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Loads a snapshot by memory mapping its sections. The numeric sections are copied into
+     * arrays with bulk reads, the names stay in the mapping and are decoded on first use.
+     * @param filePath path to snapshot
+     * @return loaded snapshot
+     * @throws IOException if there is a problem with reading the file
+     * @throws IllegalArgumentException if the file is not a snapshot of a supported version or is corrupt
+     */
+    public static StateSpaceSnapshot load(String filePath) throws IOException {
+        Path path = Utils.checkProvidedPath(filePath);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER)
+                throw new IllegalArgumentException("File is not a state space snapshot!");
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            if (header.getInt() != MAGIC)
+                throw new IllegalArgumentException("File is not a state space snapshot!");
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IllegalArgumentException("Unsupported snapshot version: " + version);
+            int flags = header.getInt();
+            int states = header.getInt();
+            int transitions = header.getInt();
+            int initialState = header.getInt();
+            long[] sections = new long[SECTIONS];
+            for (int i = 0; i < SECTIONS; i++)
+                sections[i] = header.getLong();
+            if (states <= 0 || transitions < 0 || initialState < 0 || initialState >= states)
+                throw new IllegalArgumentException("State space snapshot is corrupt!");
+
+            // every section is checked against the file before its array is allocated
+            ByteBuffer buffer = section(channel, sections[0], 4L * (states + 1));
+            int[] nameOffsets = new int[states + 1];
+            buffer.asIntBuffer().get(nameOffsets);
+            checkOffsets(nameOffsets, -1);
+            ByteBuffer nameBytes = section(channel, sections[1], nameOffsets[states]);
+
+            buffer = section(channel, sections[2], 8L * ((states + 63) / 64));
+            long[] bitmap = new long[(states + 63) / 64];
+            buffer.asLongBuffer().get(bitmap);
+            boolean[] finalStates = new boolean[states];
+            for (int i = 0; i < states; i++)
+                finalStates[i] = (bitmap[i >>> 6] & (1L << i)) != 0;
+
+            buffer = section(channel, sections[3], 4L * (states + 1));
+            int[] offsets = new int[states + 1];
+            buffer.asIntBuffer().get(offsets);
+            checkOffsets(offsets, transitions);
+            buffer = section(channel, sections[4], 4L * transitions);
+            int[] targets = new int[transitions];
+            buffer.asIntBuffer().get(targets);
+            buffer = section(channel, sections[5], 8L * transitions);
+            double[] costs = new double[transitions];
+            buffer.asDoubleBuffer().get(costs);
+            for (int e = 0; e < transitions; e++) {
+                if (targets[e] < 0 || targets[e] >= states || !(costs[e] >= 0))
+                    throw new IllegalArgumentException("State space snapshot is corrupt!");
+            }
+
+            double[] heuristic = null;
+            if ((flags & HAS_HEURISTIC) != 0) {
+                buffer = section(channel, sections[6], 8L * states);
+                heuristic = new double[states];
+                buffer.asDoubleBuffer().get(heuristic);
+            }
+
+            CompiledStateSpace css = new CompiledStateSpace(nameBytes, nameOffsets, initialState, finalStates, offsets, targets, costs);
+            return new StateSpaceSnapshot(css, heuristic);
+        }
+    }
+
+    /**
+     * Maps a section for reading after checking that it lies within the file.
+     * @throws IllegalArgumentException if the section does not lie within the file
+     */
+    private static ByteBuffer section(FileChannel channel, long position, long size) throws IOException {
+        if (position < HEADER || size < 0 || position > channel.size() - size)
+            throw new IllegalArgumentException("State space snapshot is truncated or corrupt!");
+        return map(channel, FileChannel.MapMode.READ_ONLY, position, size);
+    }
+
+    /**
+     * Checks that the offsets start at 0, never decrease and end at the given value.
+     * @param offsets offsets to check
+     * @param end expected last offset, -1 for any
+     * @throws IllegalArgumentException if the offsets are not valid
+     */
+    private static void checkOffsets(int[] offsets, int end) {
+        if (offsets[0] != 0 || (end >= 0 && offsets[offsets.length - 1] != end))
+            throw new IllegalArgumentException("State space snapshot is corrupt!");
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1])
+                throw new IllegalArgumentException("State space snapshot is corrupt!");
+        }
+    }
+
+    /**
+     * Writes the snapshot of the given state space.
+     * @param filePath path of the snapshot
+     * @param css compiled state space
+     * @param heuristic heuristic values indexed by state id, or null to write no heuristic
+     * @throws IOException if there is a problem with writing the file
+     */
+    public static void write(String filePath, CompiledStateSpace css, double[] heuristic) throws IOException {
+        int states = css.getStateCount();
+        int transitions = css.getTransitionCount();
+
+        byte[][] encoded = new byte[states][];
+        int[] nameOffsets = new int[states + 1];
+        for (int i = 0; i < states; i++) {
+            encoded[i] = css.getName(i).getBytes(StandardCharsets.UTF_8);
+            nameOffsets[i + 1] = Math.addExact(nameOffsets[i], encoded[i].length);
+        }
+
+        long[] sizes = {
+                4L * (states + 1),
+                nameOffsets[states],
+                8L * ((states + 63) / 64),
+                4L * (states + 1),
+                4L * transitions,
+                8L * transitions,
+                heuristic == null ? 0 : 8L * states
+        };
+        long[] sections = new long[SECTIONS];
+        long position = HEADER;
+        for (int i = 0; i < SECTIONS; i++) {
+            sections[i] = position;
+            position = align(position + sizes[i]);
+        }
+
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_WRITE, 0, HEADER);
+            header.putInt(MAGIC).putInt(VERSION).putInt(heuristic == null ? 0 : HAS_HEURISTIC);
+            header.putInt(states).putInt(transitions).putInt(css.getInitialState());
+            for (long section : sections)
+                header.putLong(section);
+
+            map(channel, FileChannel.MapMode.READ_WRITE, sections[0], sizes[0]).asIntBuffer().put(nameOffsets);
+            ByteBuffer names = map(channel, FileChannel.MapMode.READ_WRITE, sections[1], sizes[1]);
+            for (byte[] name : encoded)
+                names.put(name);
+
+            long[] bitmap = new long[(states + 63) / 64];
+            for (int i = 0; i < states; i++) {
+                if (css.isFinal(i))
+                    bitmap[i >>> 6] |= 1L << i;
+            }
+            map(channel, FileChannel.MapMode.READ_WRITE, sections[2], sizes[2]).asLongBuffer().put(bitmap);
+
+            map(channel, FileChannel.MapMode.READ_WRITE, sections[3], sizes[3]).asIntBuffer().put(css.getOffsets());
+            map(channel, FileChannel.MapMode.READ_WRITE, sections[4], sizes[4]).asIntBuffer().put(css.getTargets());
+            map(channel, FileChannel.MapMode.READ_WRITE, sections[5], sizes[5]).asDoubleBuffer().put(css.getCosts());
+            if (heuristic != null)
+                map(channel, FileChannel.MapMode.READ_WRITE, sections[6], sizes[6]).asDoubleBuffer().put(heuristic);
+        }
+    }
+
+    /**
+     * Maps a section of the file in little endian byte order.
+     */
+    private static ByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Snapshot section is too large: " + size);
+        return channel.map(mode, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Rounds the position up to a multiple of 8.
+     */
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+}
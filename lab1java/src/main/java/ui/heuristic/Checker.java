@@ -1,96 +1,241 @@
 package ui.heuristic;
 
+import ui.data.StringDoubleMap;
 import ui.data.Transition;
 import ui.descriptor.HeuristicFunctionDescriptor;
 import ui.descriptor.StateSpaceDescriptor;
 import ui.search.Algorithms;
-import ui.search.SearchResult;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
-import java.util.TreeSet;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 /**
- * Holds methods which check different aspects of a heuristic function
+ * Holds methods which check different aspects of a heuristic function.
+ * States are checked in parallel and the output is printed in the order of state names.
  */
 public class Checker {
+    /** Value of the summary parameter which prints every condition */
+    public static final int FULL = -1;
 
     /**
-     * Checks whether provided heuristic function is optimistic
+     * Checks whether provided heuristic function is optimistic and prints every condition
      */
     public static void checkOptimistic(String pathToStateSpaceDescriptor, String pathToHeuristicFunctionDescriptor) throws IOException {
-        System.out.println("# HEURISTIC-OPTIMISTIC " + pathToHeuristicFunctionDescriptor);
+        checkOptimistic(pathToStateSpaceDescriptor, pathToHeuristicFunctionDescriptor, FULL);
+    }
+
+    /**
+     * Checks whether provided heuristic function is optimistic
+     * @param summary number of violated conditions to print followed by counts, or {@link #FULL} to print every condition
+     */
+    public static void checkOptimistic(String pathToStateSpaceDescriptor, String pathToHeuristicFunctionDescriptor, int summary) throws IOException {
+        checkOptimistic(pathToStateSpaceDescriptor, pathToHeuristicFunctionDescriptor, new HeuristicFunctionDescriptor(pathToHeuristicFunctionDescriptor), summary);
+    }
+
+    /**
+     * Checks whether the given heuristic function, which may be combined from several descriptors, is optimistic
+     * @param name name of the heuristic printed in the header
+     * @param summary number of violated conditions to print followed by counts, or {@link #FULL} to print every condition
+     */
+    public static void checkOptimistic(String pathToStateSpaceDescriptor, String name, HeuristicFunctionDescriptor hfd, int summary) throws IOException {
+        System.out.println("# HEURISTIC-OPTIMISTIC " + name);
 
         StateSpaceDescriptor ssd = new StateSpaceDescriptor(pathToStateSpaceDescriptor);
-        HeuristicFunctionDescriptor hfd = new HeuristicFunctionDescriptor(pathToHeuristicFunctionDescriptor);
 
-        boolean optimistic = true;
-        Map<String, Double> sortedMap = new TreeMap<>(hfd.getHeuristics());
-        for (Map.Entry<String, Double> entry : sortedMap.entrySet()) {
-            // find the real cost using ucs
-            SearchResult result = Algorithms.ucs(entry.getKey(), ssd.SUCCESSOR, ssd.GOAL);
-            double realCost = result.getNode().get().getCost();
+        // find the real costs of all states with a single backward search from the final states
+        StringDoubleMap realCosts = Algorithms.costToGoal(ssd.getFinalStates(), ssd.PREDECESSOR);
 
-            // form the output string
-            StringBuilder sb = new StringBuilder();
-            sb.append("[CONDITION]: ");
-            if (entry.getValue() <= realCost) {
-                sb.append("[OK] ");
-            } else {
-                optimistic = false;
-                sb.append("[ERR] ");
+        List<Report> reports = sortedStates(hfd).parallelStream().map(state -> {
+            Report report = new Report(summary);
+            double h = hfd.getHeuristic(state);
+            double realCost = realCosts.get(state, Double.POSITIVE_INFINITY);
+
+            if (realCost == Double.POSITIVE_INFINITY) {
+                // no final state can be reached, so any heuristic value is optimistic
+                report.unreachable++;
+                if (summary == FULL)
+                    report.lines.add("[CONDITION]: [UNREACHABLE] h(" + state + ") <= h*: " + String.format("%.1f", h) + " <= inf");
+                return report;
             }
-            sb.append("h(").append(entry.getKey()).append(") <= h*: ");
-            sb.append(String.format("%.1f", entry.getValue()));
-            sb.append(" <= ");
-            sb.append(String.format("%.1f", realCost));
 
-            System.out.println(sb.toString());
-        }
+            boolean ok = h <= realCost;
+            report.record(ok, () -> {
+                StringBuilder sb = new StringBuilder();
+                sb.append("[CONDITION]: ").append(ok ? "[OK] " : "[ERR] ");
+                sb.append("h(").append(state).append(") <= h*: ");
+                sb.append(String.format("%.1f", h));
+                sb.append(" <= ");
+                sb.append(String.format("%.1f", realCost));
+                return sb.toString();
+            });
+            return report;
+        }).collect(Collectors.toList());
 
+        boolean optimistic = print(reports, summary);
         System.out.println("[CONCLUSION]: Heuristic is" + (optimistic ? "" : " not") + " optimistic.");
     }
 
     /**
-     * Checks whether provided heuristic function is consistent
+     * Checks whether provided heuristic function is consistent and prints every condition
      */
     public static void checkConsistent(String pathToStateSpaceDescriptor, String pathToHeuristicFunctionDescriptor) throws IOException {
-        System.out.println("# HEURISTIC-CONSISTENT " + pathToHeuristicFunctionDescriptor);
+        checkConsistent(pathToStateSpaceDescriptor, pathToHeuristicFunctionDescriptor, FULL);
+    }
+
+    /**
+     * Checks whether provided heuristic function is consistent
+     * @param summary number of violated conditions to print followed by counts, or {@link #FULL} to print every condition
+     */
+    public static void checkConsistent(String pathToStateSpaceDescriptor, String pathToHeuristicFunctionDescriptor, int summary) throws IOException {
+        checkConsistent(pathToStateSpaceDescriptor, pathToHeuristicFunctionDescriptor, new HeuristicFunctionDescriptor(pathToHeuristicFunctionDescriptor), summary);
+    }
+
+    /**
+     * Checks whether the given heuristic function, which may be combined from several descriptors, is consistent
+     * @param name name of the heuristic printed in the header
+     * @param summary number of violated conditions to print followed by counts, or {@link #FULL} to print every condition
+     */
+    public static void checkConsistent(String pathToStateSpaceDescriptor, String name, HeuristicFunctionDescriptor hfd, int summary) throws IOException {
+        System.out.println("# HEURISTIC-CONSISTENT " + name);
 
         StateSpaceDescriptor ssd = new StateSpaceDescriptor(pathToStateSpaceDescriptor);
-        HeuristicFunctionDescriptor hfd = new HeuristicFunctionDescriptor(pathToHeuristicFunctionDescriptor);
 
-        boolean consistent = true;
-        Map<String, Double> sortedMap = new TreeMap<>(hfd.getHeuristics());
-        for (Map.Entry<String, Double> entry : sortedMap.entrySet()) {
-            Set<Transition> transitions = new TreeSet<>(Transition.BY_NAME);
-            transitions.addAll(ssd.getTransitions().get(entry.getKey()));
-            for (Transition t : transitions) {
-                double h = hfd.HEURISTIC.apply(t.getState());
+        List<Report> reports = sortedStates(hfd).parallelStream().map(state -> {
+            Report report = new Report(summary);
+            double h1 = hfd.getHeuristic(state);
 
-                // form the output string
-                StringBuilder sb = new StringBuilder();
-                sb.append("[CONDITION]: ");
-                if (entry.getValue() <= h + t.getCost()) {
-                    sb.append("[OK] ");
-                } else {
-                    consistent = false;
-                    sb.append("[ERR] ");
-                }
-                sb.append("h(").append(entry.getKey()).append(") <= h(").append(t.getState()).append(") + c: ");
-                sb.append(String.format("%.1f", entry.getValue()));
-                sb.append(" <= ");
-                sb.append(String.format("%.1f", hfd.HEURISTIC.apply(t.getState())));
-                sb.append(" + ");
-                sb.append(String.format("%.1f", t.getCost()));
+            // sort the transitions by name, a stable sort keeps the first transition of each name
+            Transition[] transitions = ssd.getTransitions().getOrDefault(state, Collections.emptySet()).toArray(new Transition[0]);
+            Arrays.sort(transitions, Transition.BY_NAME);
+            for (int i = 0; i < transitions.length; i++) {
+                Transition t = transitions[i];
+                if (i > 0 && t.getState().equals(transitions[i - 1].getState()))
+                    continue;
+                double h2 = hfd.getHeuristic(t.getState());
 
-                System.out.println(sb.toString());
+                boolean ok = h1 <= h2 + t.getCost();
+                report.record(ok, () -> {
+                    StringBuilder sb = new StringBuilder();
+                    sb.append("[CONDITION]: ").append(ok ? "[OK] " : "[ERR] ");
+                    sb.append("h(").append(state).append(") <= h(").append(t.getState()).append(") + c: ");
+                    sb.append(String.format("%.1f", h1));
+                    sb.append(" <= ");
+                    sb.append(String.format("%.1f", h2));
+                    sb.append(" + ");
+                    sb.append(String.format("%.1f", t.getCost()));
+                    return sb.toString();
+                });
             }
-        }
+            return report;
+        }).collect(Collectors.toList());
 
+        boolean consistent = print(reports, summary);
         System.out.println("[CONCLUSION]: Heuristic is" + (consistent ? "" : " not") + " consistent.");
     }
+
+    /**
+     * Checks without printing whether the heuristic is consistent for every transition of the state space.
+     * @param ssd state space descriptor
+     * @param h heuristic function
+     * @return true if no transition violates the consistency condition, false otherwise
+     */
+    public static boolean isConsistent(StateSpaceDescriptor ssd, ToDoubleFunction<String> h) {
+        return ssd.getTransitions().entrySet().parallelStream().allMatch(entry -> {
+            double h1 = h.applyAsDouble(entry.getKey());
+            for (Transition t : entry.getValue()) {
+                if (!(h1 <= h.applyAsDouble(t.getState()) + t.getCost()))
+                    return false;
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Returns the states of the heuristic sorted by name.
+     */
+    private static List<String> sortedStates(HeuristicFunctionDescriptor hfd) {
+        String[] states = hfd.getStates();
+        Arrays.sort(states);
+        return Arrays.asList(states);
+    }
+
+    /**
+     * Prints the reports in order. In summary mode it formats and prints at most the given
+     * number of violated conditions followed by the counts.
+     * @return true if no condition was violated, false otherwise
+     */
+    private static boolean print(List<Report> reports, int summary) {
+        long ok = 0, err = 0, unreachable = 0;
+        int printed = 0;
+        for (Report report : reports) {
+            for (String line : report.lines)
+                System.out.println(line);
+            for (Supplier<String> violation : report.violations) {
+                if (printed >= summary)
+                    break;
+                System.out.println(violation.get());
+                printed++;
+            }
+            ok += report.ok;
+            err += report.err;
+            unreachable += report.unreachable;
+        }
+
+        if (summary != FULL) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("[SUMMARY]: checked ").append(ok + err + unreachable);
+            sb.append(", ok ").append(ok);
+            sb.append(", err ").append(err);
+            if (unreachable > 0)
+                sb.append(", unreachable ").append(unreachable);
+            System.out.println(sb.toString());
+        }
+        return err == 0;
+    }
+
+    /**
+     * Result of checking the conditions of a single state
+     */
+    private static class Report {
+        /** Number of violated conditions to keep, or FULL to keep every condition */
+        private final int summary;
+        /** Output lines, only used when every condition is printed */
+        private final List<String> lines = new ArrayList<>();
+        /** Violated conditions which are formatted only if they are printed, only used in summary mode */
+        private final List<Supplier<String>> violations = new ArrayList<>();
+        /** Number of satisfied conditions */
+        private long ok;
+        /** Number of violated conditions */
+        private long err;
+        /** Number of states from which no final state can be reached */
+        private long unreachable;
+
+        /**
+         * Constructor.
+         * @param summary number of violated conditions to keep, or FULL to keep every condition
+         */
+        private Report(int summary) {
+            this.summary = summary;
+        }
+
+        /**
+         * Counts the condition and keeps its line. In summary mode only the first violated
+         * conditions are kept and they are not formatted yet.
+         * @param satisfied whether the condition is satisfied
+         * @param line formats the line of the condition
+         */
+        private void record(boolean satisfied, Supplier<String> line) {
+            if (satisfied)
+                ok++;
+            else
+                err++;
+            if (summary == FULL)
+                lines.add(line.get());
+            else if (!satisfied && violations.size() < summary)
+                violations.add(line);
+        }
+    }
 }
@@ -0,0 +1,93 @@
+package ui.heuristic;
+
+import ui.descriptor.HeuristicFunctionDescriptor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Several heuristics of the same state space stored as columns of one table, where every
+ * column holds the values of one heuristic for all states in the same order. The columns are
+ * combined into a single heuristic, either by taking the largest value, which keeps the
+ * heuristic admissible and consistent if every column is, or by a weighted sum.
+ */
+public class HeuristicTable {
+    /** States sorted by name */
+    private final String[] states;
+    /** Value of heuristic k for state s at columns[k][s] */
+    private final double[][] columns;
+
+    /**
+     * Constructor.
+     */
+    private HeuristicTable(String[] states, double[][] columns) {
+        this.states = states;
+        this.columns = columns;
+    }
+
+    /**
+     * Loads the heuristic descriptors into one table. Every descriptor must define the
+     * heuristic for every state defined by any of them.
+     * @param paths paths to the heuristic descriptors
+     * @return table with a column for every descriptor
+     * @throws IOException if there is a problem with reading a file
+     * @throws IllegalArgumentException if no path is given or a descriptor misses a state
+     */
+    public static HeuristicTable load(List<String> paths) throws IOException {
+        if (paths.isEmpty()) throw new IllegalArgumentException("At least one heuristic descriptor must be provided!");
+
+        HeuristicFunctionDescriptor[] descriptors = new HeuristicFunctionDescriptor[paths.size()];
+        Set<String> union = new LinkedHashSet<>();
+        for (int k = 0; k < descriptors.length; k++) {
+            descriptors[k] = new HeuristicFunctionDescriptor(paths.get(k));
+            union.addAll(Arrays.asList(descriptors[k].getStates()));
+        }
+        String[] states = union.toArray(new String[0]);
+        Arrays.sort(states);
+
+        double[][] columns = new double[descriptors.length][states.length];
+        for (int k = 0; k < descriptors.length; k++) {
+            for (int s = 0; s < states.length; s++) {
+                if (!descriptors[k].hasHeuristic(states[s]))
+                    throw new IllegalArgumentException("Heuristic " + paths.get(k) + " is not defined for state: " + states[s]);
+                columns[k][s] = descriptors[k].getHeuristic(states[s]);
+            }
+        }
+        return new HeuristicTable(states, columns);
+    }
+
+    /**
+     * Combines the columns by taking the largest value for every state.
+     * @return combined heuristic
+     */
+    public HeuristicFunctionDescriptor max() {
+        double[] h = columns[0].clone();
+        for (int k = 1; k < columns.length; k++) {
+            double[] column = columns[k];
+            for (int s = 0; s < h.length; s++)
+                h[s] = Math.max(h[s], column[s]);
+        }
+        return new HeuristicFunctionDescriptor(states, h);
+    }
+
+    /**
+     * Combines the columns by a weighted sum for every state.
+     * @param weights weight of every column
+     * @return combined heuristic
+     * @throws IllegalArgumentException if the number of weights is not the number of columns
+     */
+    public HeuristicFunctionDescriptor weightedSum(double[] weights) {
+        if (weights.length != columns.length) throw new IllegalArgumentException("Number of heuristic weights must match the number of heuristic descriptors!");
+        double[] h = new double[states.length];
+        for (int k = 0; k < columns.length; k++) {
+            double[] column = columns[k];
+            double w = weights[k];
+            for (int s = 0; s < h.length; s++)
+                h[s] += w * column[s];
+        }
+        return new HeuristicFunctionDescriptor(states, h);
+    }
+}
@@ -0,0 +1,339 @@
+package ui.heuristic;
+
+import ui.Utils;
+import ui.descriptor.CompiledStateSpace;
+import ui.search.IntPriorityQueue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Landmark heuristic (ALT) of a compiled state space. For every landmark L the distances
+ * d(L, s) and d(s, L) to and from every state are precomputed, and the triangle inequality
+ * gives two lower bounds on the cost d(s, G) of reaching the nearest goal:
+ * <ul>
+ *     <li>d(L, G) - d(L, s), where d(L, G) is the distance to the nearest goal</li>
+ *     <li>d(s, L) - max d(g, L) over all goals g</li>
+ * </ul>
+ * The heuristic is the largest bound over all landmarks and is consistent.
+ * <p>
+ * Distances are stored as floats in one flat table per direction, rounded so that
+ * both bounds stay lower bounds. A state which reaches a landmark which can not reach
+ * a goal, or which can not reach a landmark which every goal reaches, gets an infinite value.
+ * <p>
+ * Landmarks are written to a file in little endian byte order, as a header with the magic
+ * number, the version, the number of states, the number of landmarks and the fingerprint of
+ * the state space, followed by the landmark ids, the goal distances of both directions and the
+ * two distance tables.
+ */
+public class Landmarks {
+    /** Magic number at the start of every landmark file, "UUIL" */
+    private static final int MAGIC = 0x4C495555;
+    /** Current version of the format */
+    private static final int VERSION = 2;
+    /** Size of the header in bytes */
+    private static final int HEADER = 24;
+
+    /** Number of states */
+    private final int states;
+    /** Fingerprint of the state space for which the landmarks were selected */
+    private final long fingerprint;
+    /** Ids of the landmark states */
+    private final int[] landmarks;
+    /** Distance from each landmark to the nearest goal */
+    private final double[] toGoal;
+    /** Largest distance from a goal to each landmark, infinite if some goal does not reach it */
+    private final double[] fromGoal;
+    /** Distance from landmark i to state s at index i * states + s, rounded up */
+    private final float[] forward;
+    /** Distance from state s to landmark i at index i * states + s, rounded down */
+    private final float[] backward;
+
+    /**
+     * Constructor.
+     */
+    private Landmarks(int states, long fingerprint, int[] landmarks, double[] toGoal, double[] fromGoal, float[] forward, float[] backward) {
+        this.states = states;
+        this.fingerprint = fingerprint;
+        this.landmarks = landmarks;
+        this.toGoal = toGoal;
+        this.fromGoal = fromGoal;
+        this.forward = forward;
+        this.backward = backward;
+    }
+
+    /**
+     * Selects the landmarks by farthest point selection and computes their distance tables.
+     * The first landmark is the state farthest from the initial state and every next one is
+     * the state farthest from the landmarks selected so far. Only states reachable from the
+     * initial state are selected, and the selection stops early when every such state is a landmark.
+     * @param css compiled state space
+     * @param count number of landmarks, at least 1
+     * @return landmarks
+     * @throws IllegalArgumentException if the number of landmarks is less than 1
+     */
+    public static Landmarks select(CompiledStateSpace css, int count) {
+        if (count < 1)
+            throw new IllegalArgumentException("Number of landmarks must be at least 1!");
+        int n = css.getStateCount();
+        int[] offsets = css.getOffsets();
+        int[] targets = css.getTargets();
+        double[] costs = css.getCosts();
+
+        // reverse rows give the distances to a landmark
+        int[] reverseOffsets = new int[n + 1];
+        for (int t : targets)
+            reverseOffsets[t + 1]++;
+        for (int i = 0; i < n; i++)
+            reverseOffsets[i + 1] += reverseOffsets[i];
+        int[] reverseTargets = new int[targets.length];
+        double[] reverseCosts = new double[targets.length];
+        int[] fill = Arrays.copyOf(reverseOffsets, n);
+        for (int s = 0; s < n; s++) {
+            for (int e = offsets[s], end = offsets[s + 1]; e < end; e++) {
+                int at = fill[targets[e]]++;
+                reverseTargets[at] = s;
+                reverseCosts[at] = costs[e];
+            }
+        }
+
+        double[] reachable = dijkstra(offsets, targets, costs, css.getInitialState());
+        // distance of every state from the nearest selected landmark
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        double[] farthest = reachable;
+
+        int[] selected = new int[Math.min(count, n)];
+        double[] toGoal = new double[selected.length];
+        double[] fromGoal = new double[selected.length];
+        float[] forward = new float[selected.length * n];
+        float[] backward = new float[selected.length * n];
+        int k = 0;
+        while (k < selected.length) {
+            // ties are broken by the lowest id, which keeps the selection deterministic
+            int landmark = -1;
+            for (int s = 0; s < n; s++) {
+                if (reachable[s] < Double.POSITIVE_INFINITY && farthest[s] > 0
+                        && (landmark < 0 || farthest[s] > farthest[landmark]))
+                    landmark = s;
+            }
+            if (landmark < 0)
+                break;
+
+            double[] from = dijkstra(offsets, targets, costs, landmark);
+            double[] to = dijkstra(reverseOffsets, reverseTargets, reverseCosts, landmark);
+            toGoal[k] = Double.POSITIVE_INFINITY;
+            fromGoal[k] = Double.NEGATIVE_INFINITY;
+            for (int s = 0; s < n; s++) {
+                forward[k * n + s] = roundUp(from[s]);
+                backward[k * n + s] = roundDown(to[s]);
+                if (css.isFinal(s)) {
+                    toGoal[k] = Math.min(toGoal[k], from[s]);
+                    fromGoal[k] = Math.max(fromGoal[k], to[s]);
+                }
+                nearest[s] = Math.min(nearest[s], from[s]);
+            }
+            // without goals the backward bound says nothing
+            if (fromGoal[k] == Double.NEGATIVE_INFINITY)
+                fromGoal[k] = Double.POSITIVE_INFINITY;
+            selected[k++] = landmark;
+            farthest = nearest;
+        }
+
+        return new Landmarks(n, css.getFingerprint(), Arrays.copyOf(selected, k), Arrays.copyOf(toGoal, k), Arrays.copyOf(fromGoal, k),
+                Arrays.copyOf(forward, k * n), Arrays.copyOf(backward, k * n));
+    }
+
+    /**
+     * Loads the landmarks of the given state space from a file.
+     * @param filePath path to the landmark file
+     * @param css compiled state space for which the landmarks were selected
+     * @return landmarks
+     * @throws IOException if there is a problem with reading the file
+     * @throws IllegalArgumentException if the file is not a landmark file of the state space
+     */
+    public static Landmarks load(String filePath, CompiledStateSpace css) throws IOException {
+        try (FileChannel channel = FileChannel.open(Utils.checkProvidedPath(filePath), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER)
+                throw new IllegalArgumentException("File is not a landmark file!");
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            if (header.getInt() != MAGIC)
+                throw new IllegalArgumentException("File is not a landmark file!");
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IllegalArgumentException("Unsupported landmark file version: " + version);
+            int states = header.getInt();
+            int count = header.getInt();
+            long fingerprint = header.getLong();
+            // distances of another state space, or of the same one with shifted ids, would not be lower bounds
+            if (states != css.getStateCount() || fingerprint != css.getFingerprint())
+                throw new IllegalArgumentException("Landmarks were selected for a different state space!");
+            if (count < 0 || channel.size() != size(states, count))
+                throw new IllegalArgumentException("Landmark file is truncated!");
+
+            ByteBuffer body = map(channel, FileChannel.MapMode.READ_ONLY, HEADER, size(states, count) - HEADER);
+            int[] landmarks = new int[count];
+            double[] toGoal = new double[count];
+            double[] fromGoal = new double[count];
+            float[] forward = new float[count * states];
+            float[] backward = new float[count * states];
+            body.asIntBuffer().get(landmarks);
+            body.position(4 * count);
+            body.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(toGoal).get(fromGoal);
+            body.position(20 * count);
+            body.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(forward).get(backward);
+            for (int landmark : landmarks) {
+                if (landmark < 0 || landmark >= states)
+                    throw new IllegalArgumentException("Landmark file is corrupt!");
+            }
+            return new Landmarks(states, fingerprint, landmarks, toGoal, fromGoal, forward, backward);
+        }
+    }
+
+    /**
+     * Writes the landmarks to a file.
+     * @param filePath path of the landmark file
+     * @throws IOException if there is a problem with writing the file
+     */
+    public void write(String filePath) throws IOException {
+        int count = landmarks.length;
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+            ByteBuffer buffer = map(channel, FileChannel.MapMode.READ_WRITE, 0, size(states, count));
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(states).putInt(count).putLong(fingerprint);
+            for (int landmark : landmarks)
+                buffer.putInt(landmark);
+            for (double d : toGoal)
+                buffer.putDouble(d);
+            for (double d : fromGoal)
+                buffer.putDouble(d);
+            buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().put(forward).put(backward);
+        }
+    }
+
+    /**
+     * Returns the number of landmarks.
+     * @return number of landmarks
+     */
+    public int getCount() {
+        return landmarks.length;
+    }
+
+    /**
+     * Returns the fingerprint of the state space for which the landmarks were selected.
+     * @return fingerprint of the state space
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the ids of the landmark states.
+     * @return landmark ids
+     */
+    public int[] getLandmarks() {
+        return landmarks.clone();
+    }
+
+    /**
+     * Returns the heuristic value of the given state.
+     * @param s state id
+     * @return lower bound on the cost of reaching a goal from the state
+     */
+    public double getHeuristic(int s) {
+        double h = 0;
+        for (int i = 0; i < landmarks.length; i++) {
+            float from = forward[i * states + s];
+            if (from < Float.POSITIVE_INFINITY) {
+                // the state is reached from a landmark which reaches no goal
+                if (toGoal[i] == Double.POSITIVE_INFINITY)
+                    return Double.POSITIVE_INFINITY;
+                h = Math.max(h, toGoal[i] - from);
+            }
+            if (fromGoal[i] < Double.POSITIVE_INFINITY) {
+                float to = backward[i * states + s];
+                // every goal reaches the landmark, but the state does not
+                if (to == Float.POSITIVE_INFINITY)
+                    return Double.POSITIVE_INFINITY;
+                h = Math.max(h, to - fromGoal[i]);
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Creates a table of heuristic values indexed by state id.
+     * @return heuristic values indexed by state id
+     */
+    public double[] heuristicTable() {
+        double[] h = new double[states];
+        for (int s = 0; s < states; s++)
+            h[s] = getHeuristic(s);
+        return h;
+    }
+
+    /**
+     * Computes the distances from the source over the given rows.
+     */
+    private static double[] dijkstra(int[] offsets, int[] targets, double[] costs, int source) {
+        int n = offsets.length - 1;
+        double[] g = new double[n];
+        Arrays.fill(g, Double.POSITIVE_INFINITY);
+        IntPriorityQueue open = new IntPriorityQueue(n);
+        g[source] = 0;
+        open.offer(source, 0);
+        while (!open.isEmpty()) {
+            int s = open.poll();
+            for (int e = offsets[s], end = offsets[s + 1]; e < end; e++) {
+                int m = targets[e];
+                double cost = g[s] + costs[e];
+                // costs are not negative, so a polled state is never improved
+                if (cost >= g[m])
+                    continue;
+                g[m] = cost;
+                if (open.contains(m))
+                    open.decreaseKey(m, cost);
+                else
+                    open.offer(m, cost);
+            }
+        }
+        return g;
+    }
+
+    /**
+     * Rounds the distance to the nearest float which is not smaller.
+     */
+    private static float roundUp(double d) {
+        float f = (float) d;
+        return f < d ? Math.nextUp(f) : f;
+    }
+
+    /**
+     * Rounds the distance to the nearest float which is not larger.
+     */
+    private static float roundDown(double d) {
+        float f = (float) d;
+        return f > d ? Math.nextDown(f) : f;
+    }
+
+    /**
+     * Returns the size of a landmark file in bytes.
+     */
+    private static long size(int states, int count) {
+        return HEADER + 20L * count + 8L * count * states;
+    }
+
+    /**
+     * Maps a part of the file in little endian byte order.
+     */
+    private static ByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Landmark file is too large: " + size);
+        return channel.map(mode, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -12,7 +12,11 @@ public class Node {
     /** Parent node */
     protected Node parent;
     /** State of the node */
-    protected Transition transition;
+    protected String state;
+    /** Cost of the node */
+    protected double cost;
+    /** Depth of the node, the root has depth 1 */
+    protected int depth;
 
     /**
      * Initializes node with no parent and sets cost to 0.
@@ -30,7 +34,9 @@ public class Node {
      */
     public Node(Node parent, String state, double cost) {
         this.parent = parent;
-        this.transition = new Transition(state, cost);
+        this.state = state;
+        this.cost = cost;
+        this.depth = parent == null ? 1 : parent.depth + 1;
     }
 
     /**
@@ -42,11 +48,11 @@ public class Node {
     }
 
     /**
-     * Returns the transition
+     * Returns the transition which leads to this node
      * @return transition
      */
     public Transition getTransition() {
-        return transition;
+        return new Transition(state, cost);
     }
 
     /**
@@ -54,7 +60,7 @@ public class Node {
      * @return state
      */
     public String getState() {
-        return transition.getState();
+        return state;
     }
 
     /**
@@ -62,7 +68,7 @@ public class Node {
      * @return cost
      */
     public double getCost() {
-        return transition.getCost();
+        return cost;
     }
 
     /**
@@ -75,7 +81,7 @@ public class Node {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Node node = (Node) o;
-        return Objects.equals(parent, node.parent) && Objects.equals(transition, node.transition);
+        return Double.compare(node.cost, cost) == 0 && Objects.equals(state, node.state) && Objects.equals(parent, node.parent);
     }
 
     /**
@@ -84,7 +90,7 @@ public class Node {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(parent, transition);
+        return Objects.hash(parent, state, cost);
     }
 
     /**
@@ -92,12 +98,6 @@ public class Node {
      * @return depth
      */
     public int getDepth() {
-        int depth = 1;
-        Node node = this;
-        while (node.getParent() != null) {
-            node = node.getParent();
-            depth++;
-        }
         return depth;
     }
 
@@ -106,14 +106,10 @@ public class Node {
      * @return path from start to this node
      */
     public List<Node> getPath() {
-        List<Node> path = new LinkedList<>();
-
-        path.add(this);
-        Node node = getParent();
-        while (node != null) {
-            path.add(0, node);
-            node = node.getParent();
-        }
+        List<Node> path = new ArrayList<>(depth);
+        for (Node node = this; node != null; node = node.getParent())
+            path.add(node);
+        Collections.reverse(path);
 
         return path;
     }
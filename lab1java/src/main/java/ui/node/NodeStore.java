@@ -0,0 +1,131 @@
+package ui.node;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Stores the nodes of a search tree in parallel primitive arrays. A node is identified by its
+ * index and refers to its parent by index, so no object is allocated per generated node.
+ */
+public class NodeStore {
+    /** Index of the parent of each node, -1 for the root */
+    private int[] parent;
+    /** State id of each node */
+    private int[] state;
+    /** Cost of each node */
+    private double[] cost;
+    /** Depth of each node, the root has depth 1 */
+    private int[] depth;
+    /** Number of nodes */
+    private int size;
+
+    /**
+     * Initializes an empty store.
+     */
+    public NodeStore() {
+        this(16);
+    }
+
+    /**
+     * Initializes an empty store with the given initial capacity.
+     * @param capacity initial capacity
+     */
+    public NodeStore(int capacity) {
+        capacity = Math.max(capacity, 1);
+        parent = new int[capacity];
+        state = new int[capacity];
+        cost = new double[capacity];
+        depth = new int[capacity];
+    }
+
+    /**
+     * Adds a node.
+     * @param parentIndex index of the parent node or -1 for the root
+     * @param stateId state id
+     * @param nodeCost cost of the node
+     * @return index of the added node
+     */
+    public int add(int parentIndex, int stateId, double nodeCost) {
+        if (size == parent.length) {
+            int capacity = size + (size >> 1) + 1;
+            parent = Arrays.copyOf(parent, capacity);
+            state = Arrays.copyOf(state, capacity);
+            cost = Arrays.copyOf(cost, capacity);
+            depth = Arrays.copyOf(depth, capacity);
+        }
+        parent[size] = parentIndex;
+        state[size] = stateId;
+        cost[size] = nodeCost;
+        depth[size] = parentIndex < 0 ? 1 : depth[parentIndex] + 1;
+        return size++;
+    }
+
+    /**
+     * Returns the number of nodes.
+     * @return number of nodes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the index of the parent node.
+     * @param index node index
+     * @return index of the parent or -1 for the root
+     */
+    public int getParent(int index) {
+        return parent[index];
+    }
+
+    /**
+     * Returns the state id of the node.
+     * @param index node index
+     * @return state id
+     */
+    public int getState(int index) {
+        return state[index];
+    }
+
+    /**
+     * Returns the cost of the node.
+     * @param index node index
+     * @return cost
+     */
+    public double getCost(int index) {
+        return cost[index];
+    }
+
+    /**
+     * Returns the depth of the node.
+     * @param index node index
+     * @return depth, the root has depth 1
+     */
+    public int getDepth(int index) {
+        return depth[index];
+    }
+
+    /**
+     * Returns the node indices on the path from the root to the given node.
+     * @param index node index
+     * @return node indices from the root to the node
+     */
+    public int[] getPath(int index) {
+        int[] path = new int[depth[index]];
+        for (int i = index, j = path.length - 1; i >= 0; i = parent[i], j--)
+            path[j] = i;
+        return path;
+    }
+
+    /**
+     * Creates the chain of search tree nodes from the root to the given node.
+     * @param index node index
+     * @param names function which returns the name of a state id
+     * @return node of the given index
+     */
+    public Node toNode(int index, IntFunction<String> names) {
+        Node node = null;
+        for (int i : getPath(index))
+            node = new Node(node, names.apply(state[i]), cost[i]);
+        return node;
+    }
+}
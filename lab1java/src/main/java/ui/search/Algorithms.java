@@ -1,12 +1,14 @@
 package ui.search;
 
+import ui.data.StringDoubleMap;
 import ui.data.Transition;
-import ui.node.HeuristicNode;
 import ui.node.Node;
+import ui.node.NodeStore;
 
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -22,36 +24,51 @@ public class Algorithms {
      * @return result of search
      */
     public static SearchResult bfs(String s0, Function<String, List<Transition>> succ, Predicate<String> goal) {
-        List<Node> open = new LinkedList<>();
-        Set<String> visited = new HashSet<>();
-        // with this set we sacrifice some memory for the sake of a lot of speed
-        Set<String> openSet = new HashSet<>();
+        return bfs(s0, succ, goal, SearchListener.NONE);
+    }
+
+    /**
+     * Breadth first search
+     * @param s0 initial state
+     * @param succ successor function
+     * @param goal goal function
+     * @param listener listener notified about the events of the search
+     * @return result of search
+     */
+    public static SearchResult bfs(String s0, Function<String, List<Transition>> succ, Predicate<String> goal, SearchListener listener) {
+        // nodes are stored in the order in which they were added to open, so open is the tail of the store
+        NodeStore nodes = new NodeStore();
+        List<String> names = new ArrayList<>();
+        // ids of the states that were either visited or added to open
+        Map<String, Integer> ids = new HashMap<>();
 
-        open.add(new Node(s0));
-        openSet.add(s0);
+        names.add(s0);
+        ids.put(s0, 0);
+        nodes.add(-1, 0, 0);
 
         int statesVisited = 0;
 
-        while (!open.isEmpty()) {
-            Node n = open.remove(0);
+        for (int n = 0; n < nodes.size(); n++) {
+            String state = names.get(nodes.getState(n));
             statesVisited++;
-            if (goal.test(n.getState())) {
-                return new SearchResult(Optional.of(n), statesVisited);
+            listener.expanded(state);
+            if (goal.test(state)) {
+                listener.goalReached(state);
+                return new SearchResult(Optional.of(nodes.toNode(n, names::get)), statesVisited);
             }
-            visited.add(n.getState());
-
-            for (Transition m : succ.apply(n.getState())) {
-                // check if state was already visited
-                if (visited.contains(m.getState()))
-                    continue;
 
-                // check if state is in open
-                if (openSet.contains(m.getState()))
+            for (Transition m : succ.apply(state)) {
+                // check if state was already visited or if it is in open
+                if (ids.putIfAbsent(m.getState(), names.size()) != null) {
+                    listener.duplicate(m.getState());
                     continue;
+                }
 
-                open.add(new Node(n, m.getState(), m.getCost() + n.getCost()));
-                openSet.add(m.getState());
+                nodes.add(n, names.size(), m.getCost() + nodes.getCost(n));
+                names.add(m.getState());
+                listener.generated(m.getState());
             }
+            listener.openSize(nodes.size() - n - 1);
         }
         return new SearchResult(Optional.empty(), statesVisited);
     }
@@ -63,62 +80,77 @@ public class Algorithms {
      * @param goal goal function
      * @return result of search
      */
-    public static SearchResult ucs(String s0, Function<String, Set<Transition>> succ, Predicate<String> goal) {
-        Queue<Node> open = new PriorityQueue<>(Node.BY_COST.thenComparing(Node.BY_NAME));
-        Set<String> visited = new HashSet<>();
-        // with this set we sacrifice some memory for the sake of a lot of speed
-        Set<String> openSet = new HashSet<>();
+    public static SearchResult ucs(String s0, Function<String, ? extends Collection<Transition>> succ, Predicate<String> goal) {
+        return ucs(s0, succ, goal, SearchListener.NONE);
+    }
+
+    /**
+     * Uniform cost search
+     * @param s0 initial state
+     * @param succ successor function
+     * @param goal goal function
+     * @param listener listener notified about the events of the search
+     * @return result of search
+     */
+    public static SearchResult ucs(String s0, Function<String, ? extends Collection<Transition>> succ, Predicate<String> goal, SearchListener listener) {
+        NodeStore nodes = new NodeStore();
+        List<String> names = new ArrayList<>();
+        // latest node of each state that was either visited or added to open
+        Map<String, Integer> latest = new HashMap<>();
+        BitSet visited = new BitSet();
+        // states are ordered by cost and then by name
+        IntPriorityQueue open = new IntPriorityQueue(16, (a, b) -> names.get(a).compareTo(names.get(b)));
 
-        open.add(new Node(s0));
-        openSet.add(s0);
+        names.add(s0);
+        latest.put(s0, nodes.add(-1, 0, 0));
+        open.offer(0, 0);
 
         int statesVisited = 0;
 
         while (!open.isEmpty()) {
-            Node n = open.poll();
-            openSet.remove(n.getState());
+            int s = open.poll();
+            String state = names.get(s);
+            int n = latest.get(state);
             statesVisited++;
-            if (goal.test(n.getState())) {
-                return new SearchResult(Optional.of(n), statesVisited);
+            listener.expanded(state);
+            if (goal.test(state)) {
+                listener.goalReached(state);
+                return new SearchResult(Optional.of(nodes.toNode(n, names::get)), statesVisited);
             }
-            visited.add(n.getState());
+            visited.set(s);
 
-            for (Transition m : succ.apply(n.getState())) {
-                // continue if this state has already been visited
-                if (visited.contains(m.getState())) {
-                    continue;
-                }
+            for (Transition m : succ.apply(state)) {
+                double cost = m.getCost() + nodes.getCost(n);
 
-                // if this state is not in open then there is no need to search for it in open
-                if (!openSet.contains(m.getState())) {
-                    open.offer(new Node(n, m.getState(), m.getCost() + n.getCost()));
-                    openSet.add(m.getState());
+                // if this state was never seen then there is no need to compare it with the node in open
+                Integer o = latest.get(m.getState());
+                if (o == null) {
+                    int id = names.size();
+                    names.add(m.getState());
+                    latest.put(m.getState(), nodes.add(n, id, cost));
+                    open.offer(id, cost);
+                    listener.generated(m.getState());
                     continue;
                 }
 
-                // check if there is a cheaper node for this state in open
-                // if there is a node that is more expensive, remove it
-                double cost = m.getCost() + n.getCost();
-                boolean seenCheaper = false;
-                Iterator<Node> it = open.iterator();
-                while (it.hasNext()) {
-                    Node o = it.next();
-                    if (o.getState().equals(m.getState())) {
-                        if (o.getCost() <= cost) {
-                            seenCheaper = true;
-                            break;
-                        } else {
-                            it.remove();
-                            break;
-                        }
-                    }
+                // continue if this state has already been visited
+                int id = nodes.getState(o);
+                if (visited.get(id)) {
+                    listener.duplicate(m.getState());
+                    continue;
                 }
 
-                if (!seenCheaper) {
-                    open.offer(new Node(n, m.getState(), m.getCost() + n.getCost()));
-                    openSet.add(m.getState());
+                // replace the node in open if this one is cheaper
+                if (open.getPriority(id) > cost) {
+                    latest.put(m.getState(), nodes.add(n, id, cost));
+                    open.decreaseKey(id, cost);
+                    listener.generated(m.getState());
+                    listener.decreasedKey(m.getState());
+                } else {
+                    listener.duplicate(m.getState());
                 }
             }
+            listener.openSize(open.size());
         }
         return new SearchResult(Optional.empty(), statesVisited);
     }
@@ -131,67 +163,134 @@ public class Algorithms {
      * @param h heuristic function
      * @return result of search
      */
-    public static SearchResult astar(String s0, Function<String, Set<Transition>> succ, Predicate<String> goal, Function<String, Double> h) {
-        Queue<HeuristicNode> open = new PriorityQueue<>(HeuristicNode.BY_TOTAL_COST.thenComparing(HeuristicNode.BY_NAME));
-        Set<String> closed = new HashSet<>();
-        // with this set we sacrifice some memory for the sake of a lot of speed
-        Set<String> openSet = new HashSet<>();
+    public static SearchResult astar(String s0, Function<String, ? extends Collection<Transition>> succ, Predicate<String> goal, ToDoubleFunction<String> h) {
+        return astar(s0, succ, goal, h, SearchListener.NONE);
+    }
+
+    /**
+     * A* search algorithm
+     * @param s0 initial state
+     * @param succ successor function
+     * @param goal goal function
+     * @param h heuristic function
+     * @param listener listener notified about the events of the search
+     * @return result of search
+     */
+    public static SearchResult astar(String s0, Function<String, ? extends Collection<Transition>> succ, Predicate<String> goal, ToDoubleFunction<String> h, SearchListener listener) {
+        NodeStore nodes = new NodeStore();
+        List<String> names = new ArrayList<>();
+        // latest node of each state that was either closed or added to open
+        Map<String, Integer> latest = new HashMap<>();
+        BitSet closed = new BitSet();
+        // states are ordered by total cost and then by name
+        IntPriorityQueue open = new IntPriorityQueue(16, (a, b) -> names.get(a).compareTo(names.get(b)));
 
-        open.add(new HeuristicNode(s0, h.apply(s0)));
-        openSet.add(s0);
+        names.add(s0);
+        latest.put(s0, nodes.add(-1, 0, 0));
+        open.offer(0, h.applyAsDouble(s0));
+        listener.heuristicEvaluated(s0);
 
         int statesVisited = 0;
 
         while (!open.isEmpty()) {
-            HeuristicNode n = open.poll();
-            openSet.remove(n.getState());
+            int s = open.poll();
+            String state = names.get(s);
+            int n = latest.get(state);
             statesVisited++;
-            if (goal.test(n.getState())) {
-                return new SearchResult(Optional.of(n), statesVisited);
+            listener.expanded(state);
+            if (goal.test(state)) {
+                listener.goalReached(state);
+                return new SearchResult(Optional.of(nodes.toNode(n, names::get)), statesVisited);
             }
-            closed.add(n.getState());
+            closed.set(s);
 
-            Set<Transition> successors = succ.apply(n.getState());
-            for (Transition m : successors) {
+            for (Transition m : succ.apply(state)) {
                 // check if closed contains this state
-                if (closed.contains(m.getState())) {
+                Integer o = latest.get(m.getState());
+                if (o != null && closed.get(nodes.getState(o))) {
+                    listener.duplicate(m.getState());
                     continue;
                 }
 
-                double cost = m.getCost() + n.getCost();
-                double totalCost = cost + h.apply(m.getState());
-                String state = m.getState();
+                double cost = m.getCost() + nodes.getCost(n);
+                double totalCost = cost + h.applyAsDouble(m.getState());
+                listener.heuristicEvaluated(m.getState());
 
                 // if the state is not in open, add it and continue with the loop
                 // no need to check if there is cheaper in open
-                if (!openSet.contains(state)) {
-                    open.offer(new HeuristicNode(n, state, cost, totalCost));
-                    openSet.add(state);
+                if (o == null) {
+                    int id = names.size();
+                    names.add(m.getState());
+                    latest.put(m.getState(), nodes.add(n, id, cost));
+                    open.offer(id, totalCost);
+                    listener.generated(m.getState());
                     continue;
                 }
 
-                // Iterator has to be used because removing an element while looping is not possible
-                boolean seenCheaper = false;
-                Iterator<HeuristicNode> it = open.iterator();
-                while (it.hasNext()) {
-                    HeuristicNode o = it.next();
-                    if (o.getState().equals(state)) {
-                        if (o.getTotalCost() <= totalCost) {
-                            seenCheaper = true;
-                            break;
-                        } else {
-                            it.remove();
-                            break;
-                        }
-                    }
+                // replace the node in open if this one is cheaper
+                int id = nodes.getState(o);
+                if (open.getPriority(id) > totalCost) {
+                    latest.put(m.getState(), nodes.add(n, id, cost));
+                    open.decreaseKey(id, totalCost);
+                    listener.generated(m.getState());
+                    listener.decreasedKey(m.getState());
+                } else {
+                    listener.duplicate(m.getState());
                 }
+            }
+            listener.openSize(open.size());
+        }
+        return new SearchResult(Optional.empty(), statesVisited);
+    }
+
+    /**
+     * Weighted A* search algorithm. It is A* with the heuristic multiplied by the weight,
+     * so the cost of the found path is at most weight times the optimal cost when the
+     * heuristic is optimistic.
+     * @param s0 initial state
+     * @param succ successor function
+     * @param goal goal function
+     * @param h heuristic function
+     * @param weight weight of the heuristic, at least 1
+     * @param listener listener notified about the events of the search
+     * @return result of search
+     */
+    public static SearchResult wastar(String s0, Function<String, ? extends Collection<Transition>> succ, Predicate<String> goal, ToDoubleFunction<String> h, double weight, SearchListener listener) {
+        return astar(s0, succ, goal, state -> weight * h.applyAsDouble(state), listener);
+    }
+
+    /**
+     * Computes the cost of the cheapest path to any of the goal states for every state
+     * from which a goal state can be reached. Runs a single Dijkstra search from all goal
+     * states over the reverse transitions.
+     * @param goals goal states
+     * @param pred predecessor function, returns transitions with the source state and cost
+     * @return cost to the nearest goal mapped by state, unreachable states are not contained
+     */
+    public static StringDoubleMap costToGoal(Set<String> goals, Function<String, Set<Transition>> pred) {
+        IndexedPriorityQueue<Node> open = new IndexedPriorityQueue<>(Node.BY_COST.thenComparing(Node.BY_NAME));
+        StringDoubleMap settled = new StringDoubleMap();
 
-                if (!seenCheaper) {
-                    open.offer(new HeuristicNode(n, state, cost, totalCost));
-                    openSet.add(state);
+        for (String g : goals)
+            open.offer(new Node(g));
+
+        while (!open.isEmpty()) {
+            Node n = open.poll();
+            settled.put(n.getState(), n.getCost());
+
+            for (Transition m : pred.apply(n.getState())) {
+                if (settled.containsKey(m.getState()))
+                    continue;
+
+                double cost = m.getCost() + n.getCost();
+                Node o = open.get(m.getState());
+                if (o == null) {
+                    open.offer(new Node(n, m.getState(), cost));
+                } else if (o.getCost() > cost) {
+                    open.decreaseKey(new Node(n, m.getState(), cost));
                 }
             }
         }
-        return new SearchResult(Optional.empty(), statesVisited);
+        return settled;
     }
 }
@@ -0,0 +1,250 @@
+package ui.search;
+
+import ui.data.Transition;
+import ui.node.Node;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Holds implementations of anytime search algorithms, which find a solution quickly
+ * and keep improving it until they run out of time.
+ */
+public class AnytimeAlgorithms {
+
+    /**
+     * Receives every improved solution of an anytime search.
+     */
+    public interface Improvement {
+        /**
+         * Called when the search finds a better solution or proves a tighter bound.
+         * @param result result with the best solution so far
+         * @param weight weight of the heuristic in the iteration which found the solution
+         * @param bound cost of the solution is at most bound times the optimal cost
+         */
+        void improved(SearchResult result, double weight, double bound);
+    }
+
+    /**
+     * Anytime repairing A* search algorithm. It runs weighted A* with a decreasing weight and
+     * reuses the search effort of the previous iterations. States whose cost dropped after
+     * they were expanded are kept aside and reopened in the next iteration.
+     * <p>
+     * The suboptimality bound is the cost of the solution divided by the lowest cost plus
+     * heuristic of a state which is open or kept aside, and never more than the weight
+     * of the last completed iteration.
+     * It is valid when the heuristic is optimistic.
+     * @param s0 initial state
+     * @param succ successor function
+     * @param goal goal function
+     * @param h heuristic function
+     * @param weight initial weight of the heuristic, at least 1
+     * @param step amount by which the weight is decreased after each iteration
+     * @param deadline value of {@link System#nanoTime()} at which the search stops
+     * @param expansions number of expanded states after which the search stops
+     * @param improvement receives every improved solution
+     * @return result with the best solution found
+     */
+    public static SearchResult arastar(String s0, Function<String, ? extends Collection<Transition>> succ, Predicate<String> goal,
+                                       ToDoubleFunction<String> h, double weight, double step, long deadline, long expansions,
+                                       Improvement improvement) {
+        AraSearch search = new AraSearch(succ, goal, h, weight);
+        search.open.offer(search.id(s0, 0), search.key(0));
+
+        SearchResult result = null;
+        double lastCost = Double.POSITIVE_INFINITY, lastBound = Double.POSITIVE_INFINITY;
+        // weight of the last completed iteration, the weight of an interrupted one proves nothing
+        double proven = Double.POSITIVE_INFINITY;
+        while (true) {
+            boolean complete = search.improvePath(deadline, expansions);
+            if (complete)
+                proven = search.weight;
+
+            double lowerBound = search.lowerBound();
+            if (search.best >= 0) {
+                double cost = search.g[search.best];
+                double bound = lowerBound == Double.POSITIVE_INFINITY || cost <= lowerBound
+                        ? 1
+                        : Math.min(proven, cost / lowerBound);
+                if (cost < lastCost || bound < lastBound) {
+                    result = new SearchResult(Optional.of(search.toNode(search.best)), search.statesVisited);
+                    improvement.improved(result, search.weight, bound);
+                    lastCost = cost;
+                    lastBound = bound;
+                }
+            }
+
+            if (!complete || search.weight <= 1 || lowerBound == Double.POSITIVE_INFINITY)
+                break;
+            search.reopen(Math.max(1, search.weight - step));
+        }
+        return result != null ? result : new SearchResult(Optional.empty(), search.statesVisited);
+    }
+
+    /**
+     * State of an anytime repairing A* search. States are identified by the order in which they were reached.
+     */
+    private static class AraSearch {
+        final Function<String, ? extends Collection<Transition>> succ;
+        final Predicate<String> goal;
+        final ToDoubleFunction<String> h;
+        /** Names of the states */
+        final List<String> names = new ArrayList<>();
+        /** Ids of the states */
+        final Map<String, Integer> ids = new HashMap<>();
+        /** Cost of reaching each state */
+        double[] g = new double[16];
+        /** Heuristic value of each state */
+        double[] hv = new double[16];
+        /** Parent of each state, -1 for the initial state */
+        int[] parent = new int[16];
+        /** Cost of the transition from the parent of each state */
+        double[] via = new double[16];
+        /** States expanded in the current iteration */
+        final BitSet closed = new BitSet();
+        /** Expanded states whose cost dropped in the current iteration */
+        final BitSet incons = new BitSet();
+        /** States ordered by cost plus weighted heuristic and then by name */
+        IntPriorityQueue open;
+        /** Weight of the current iteration */
+        double weight;
+        /** Best goal state, -1 if none was reached */
+        int best = -1;
+        /** Number of expanded states over all iterations */
+        int statesVisited;
+
+        AraSearch(Function<String, ? extends Collection<Transition>> succ, Predicate<String> goal, ToDoubleFunction<String> h, double weight) {
+            this.succ = succ;
+            this.goal = goal;
+            this.h = h;
+            this.weight = weight;
+            this.open = queue();
+        }
+
+        /**
+         * Returns the id of the state, adding it with an infinite cost if it was not reached before.
+         */
+        int id(String state, int from) {
+            Integer id = ids.get(state);
+            if (id != null)
+                return id;
+            int s = names.size();
+            if (s == g.length) {
+                int capacity = s + (s >> 1) + 1;
+                g = Arrays.copyOf(g, capacity);
+                hv = Arrays.copyOf(hv, capacity);
+                parent = Arrays.copyOf(parent, capacity);
+                via = Arrays.copyOf(via, capacity);
+            }
+            names.add(state);
+            ids.put(state, s);
+            g[s] = s == 0 ? 0 : Double.POSITIVE_INFINITY;
+            hv[s] = h.applyAsDouble(state);
+            parent[s] = s == 0 ? -1 : from;
+            if (s == 0 && goal.test(state))
+                best = 0;
+            return s;
+        }
+
+        /**
+         * Returns the key of the state in open.
+         */
+        double key(int s) {
+            return g[s] + weight * hv[s];
+        }
+
+        /**
+         * Expands states until no state in open has a lower key than the best goal.
+         * @return true if the iteration completed, false if the search ran out of time or expansions
+         */
+        boolean improvePath(long deadline, long expansions) {
+            while (!open.isEmpty() && (best < 0 || key(best) > open.getPriority(open.peek()))) {
+                if (statesVisited >= expansions || System.nanoTime() - deadline >= 0)
+                    return false;
+
+                int s = open.poll();
+                closed.set(s);
+                statesVisited++;
+
+                for (Transition t : succ.apply(names.get(s))) {
+                    int m = id(t.getState(), s);
+                    double cost = g[s] + t.getCost();
+                    if (cost >= g[m])
+                        continue;
+
+                    g[m] = cost;
+                    parent[m] = s;
+                    via[m] = t.getCost();
+                    if ((best < 0 || cost < g[best]) && goal.test(names.get(m)))
+                        best = m;
+
+                    if (closed.get(m))
+                        incons.set(m);
+                    else if (open.contains(m))
+                        open.decreaseKey(m, key(m));
+                    else
+                        open.offer(m, key(m));
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns the lowest cost plus heuristic of a state which is open or kept aside,
+         * which is a lower bound on the optimal cost for an optimistic heuristic.
+         */
+        double lowerBound() {
+            double min = Double.POSITIVE_INFINITY;
+            for (int s = 0; s < names.size(); s++) {
+                if (open.contains(s) || incons.get(s))
+                    min = Math.min(min, g[s] + hv[s]);
+            }
+            return min;
+        }
+
+        /**
+         * Starts the next iteration with the given weight, moving the states kept aside to open.
+         */
+        void reopen(double newWeight) {
+            weight = newWeight;
+            IntPriorityQueue next = queue();
+            for (int s = 0; s < names.size(); s++) {
+                if (open.contains(s) || incons.get(s))
+                    next.offer(s, key(s));
+            }
+            open = next;
+            closed.clear();
+            incons.clear();
+        }
+
+        /**
+         * Creates an empty open queue which orders states with equal keys by name.
+         */
+        IntPriorityQueue queue() {
+            return new IntPriorityQueue(Math.max(names.size(), 16), (a, b) -> names.get(a).compareTo(names.get(b)));
+        }
+
+        /**
+         * Creates the chain of nodes from the initial state to the given state. Costs are summed
+         * along the path, because the cost of a parent may have dropped after it was set.
+         */
+        Node toNode(int s) {
+            int depth = 0;
+            for (int i = s; i >= 0; i = parent[i])
+                depth++;
+            int[] path = new int[depth];
+            for (int i = s, j = depth - 1; i >= 0; i = parent[i], j--)
+                path[j] = i;
+
+            Node node = null;
+            double cost = 0;
+            for (int id : path) {
+                cost += node == null ? 0 : via[id];
+                node = new Node(node, names.get(id), cost);
+            }
+            return node;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package ui.search;
+
+import ui.data.Transition;
+import ui.node.Node;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Holds implementations of bidirectional search algorithms. The forward search starts from the
+ * initial state and the backward search starts from all goal states over the reverse transitions.
+ */
+public class BidirectionalAlgorithms {
+
+    /**
+     * Bidirectional breadth first search. Expands whole levels of the smaller frontier and stops
+     * at the first level in which the two searches meet, choosing the shortest meeting path.
+     * @param s0 initial state
+     * @param succ successor function sorted by state name
+     * @param pred predecessor function, returns transitions with the source state and cost
+     * @param goals goal states
+     * @return result of search
+     */
+    public static SearchResult bfs(String s0, Function<String, List<Transition>> succ,
+                                   Function<String, Set<Transition>> pred, Set<String> goals) {
+        return bfs(s0, succ, pred, goals, SearchListener.NONE);
+    }
+
+    /**
+     * Bidirectional breadth first search. Expands whole levels of the smaller frontier and stops
+     * at the first level in which the two searches meet, choosing the shortest meeting path.
+     * @param s0 initial state
+     * @param succ successor function sorted by state name
+     * @param pred predecessor function, returns transitions with the source state and cost
+     * @param goals goal states
+     * @param listener listener notified about the events of both searches
+     * @return result of search
+     */
+    public static SearchResult bfs(String s0, Function<String, List<Transition>> succ,
+                                   Function<String, Set<Transition>> pred, Set<String> goals,
+                                   SearchListener listener) {
+        if (goals.contains(s0)) {
+            listener.expanded(s0);
+            listener.goalReached(s0);
+            return new SearchResult(Optional.of(new Node(s0)), 1);
+        }
+
+        Map<String, Node> forwardSeen = new HashMap<>();
+        Map<String, Node> backwardSeen = new HashMap<>();
+        List<Node> forward = new ArrayList<>();
+        List<Node> backward = new ArrayList<>();
+
+        forward.add(new Node(s0));
+        forwardSeen.put(s0, forward.get(0));
+        for (String g : new TreeSet<>(goals)) {
+            Node node = new Node(g);
+            backward.add(node);
+            backwardSeen.put(g, node);
+        }
+
+        int forwardDepth = 1, backwardDepth = 1;
+        int statesVisited = 0;
+
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            boolean expandForward = forward.size() <= backward.size();
+            List<Node> next = new ArrayList<>();
+            Node meetForward = null, meetBackward = null;
+            int shortest = Integer.MAX_VALUE;
+
+            for (Node n : expandForward ? forward : backward) {
+                statesVisited++;
+                listener.expanded(n.getState());
+                Collection<Transition> transitions = expandForward ? succ.apply(n.getState()) : sortedByName(pred.apply(n.getState()));
+                for (Transition m : transitions) {
+                    Map<String, Node> seen = expandForward ? forwardSeen : backwardSeen;
+                    if (seen.containsKey(m.getState())) {
+                        listener.duplicate(m.getState());
+                        continue;
+                    }
+
+                    Node node = new Node(n, m.getState(), m.getCost() + n.getCost());
+                    seen.put(m.getState(), node);
+                    next.add(node);
+                    listener.generated(m.getState());
+
+                    // check whether the other search has already reached this state
+                    Node other = (expandForward ? backwardSeen : forwardSeen).get(m.getState());
+                    if (other == null)
+                        continue;
+                    int length = expandForward ? forwardDepth + other.getDepth() : other.getDepth() + backwardDepth;
+                    if (length < shortest) {
+                        shortest = length;
+                        meetForward = expandForward ? node : other;
+                        meetBackward = expandForward ? other : node;
+                    }
+                }
+            }
+
+            if (meetForward != null) {
+                Node path = join(meetForward, meetBackward, succ);
+                listener.goalReached(path.getState());
+                return new SearchResult(Optional.of(path), statesVisited);
+            }
+
+            if (expandForward) {
+                forward = next;
+                forwardDepth++;
+            } else {
+                backward = next;
+                backwardDepth++;
+            }
+            listener.openSize(forward.size() + backward.size());
+        }
+        return new SearchResult(Optional.empty(), statesVisited);
+    }
+
+    /**
+     * Bidirectional uniform cost search. Expands the direction with the cheaper first node and
+     * stops when the sum of the costs of both first nodes is not lower than the cheapest path
+     * found so far.
+     * @param s0 initial state
+     * @param succ successor function
+     * @param pred predecessor function, returns transitions with the source state and cost
+     * @param goals goal states
+     * @return result of search
+     */
+    public static SearchResult ucs(String s0, Function<String, Set<Transition>> succ,
+                                   Function<String, Set<Transition>> pred, Set<String> goals) {
+        return ucs(s0, succ, pred, goals, SearchListener.NONE);
+    }
+
+    /**
+     * Bidirectional uniform cost search. Expands the direction with the cheaper first node and
+     * stops when the sum of the costs of both first nodes is not lower than the cheapest path
+     * found so far.
+     * @param s0 initial state
+     * @param succ successor function
+     * @param pred predecessor function, returns transitions with the source state and cost
+     * @param goals goal states
+     * @param listener listener notified about the events of both searches
+     * @return result of search
+     */
+    public static SearchResult ucs(String s0, Function<String, Set<Transition>> succ,
+                                   Function<String, Set<Transition>> pred, Set<String> goals,
+                                   SearchListener listener) {
+        if (goals.contains(s0)) {
+            listener.expanded(s0);
+            listener.goalReached(s0);
+            return new SearchResult(Optional.of(new Node(s0)), 1);
+        }
+
+        Comparator<Node> order = Node.BY_COST.thenComparing(Node.BY_NAME);
+        IndexedPriorityQueue<Node> forward = new IndexedPriorityQueue<>(order);
+        IndexedPriorityQueue<Node> backward = new IndexedPriorityQueue<>(order);
+        Map<String, Node> forwardClosed = new HashMap<>();
+        Map<String, Node> backwardClosed = new HashMap<>();
+
+        forward.offer(new Node(s0));
+        for (String g : goals)
+            backward.offer(new Node(g));
+
+        // cheapest path found so far, as the forward and the backward node of the meeting state
+        double best = Double.POSITIVE_INFINITY;
+        Node meetForward = null, meetBackward = null;
+
+        int statesVisited = 0;
+
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            if (forward.peek().getCost() + backward.peek().getCost() >= best)
+                break;
+
+            boolean expandForward = forward.peek().getCost() <= backward.peek().getCost();
+            IndexedPriorityQueue<Node> open = expandForward ? forward : backward;
+            Map<String, Node> closed = expandForward ? forwardClosed : backwardClosed;
+
+            Node n = open.poll();
+            closed.put(n.getState(), n);
+            statesVisited++;
+            listener.expanded(n.getState());
+
+            for (Transition m : expandForward ? succ.apply(n.getState()) : pred.apply(n.getState())) {
+                if (closed.containsKey(m.getState())) {
+                    listener.duplicate(m.getState());
+                    continue;
+                }
+
+                double cost = m.getCost() + n.getCost();
+                Node o = open.get(m.getState());
+                Node node;
+                if (o == null) {
+                    node = new Node(n, m.getState(), cost);
+                    open.offer(node);
+                    listener.generated(m.getState());
+                } else if (o.getCost() > cost) {
+                    node = new Node(n, m.getState(), cost);
+                    open.decreaseKey(node);
+                    listener.generated(m.getState());
+                    listener.decreasedKey(m.getState());
+                } else {
+                    listener.duplicate(m.getState());
+                    continue;
+                }
+
+                // check whether the other search has reached this state
+                Node other = expandForward ? backwardClosed.get(m.getState()) : forwardClosed.get(m.getState());
+                if (other == null)
+                    other = expandForward ? backward.get(m.getState()) : forward.get(m.getState());
+                if (other != null && cost + other.getCost() < best) {
+                    best = cost + other.getCost();
+                    meetForward = expandForward ? node : other;
+                    meetBackward = expandForward ? other : node;
+                }
+            }
+            listener.openSize(forward.size() + backward.size());
+        }
+
+        if (meetForward == null) {
+            return new SearchResult(Optional.empty(), statesVisited);
+        }
+        Node path = join(meetForward, meetBackward, succ);
+        listener.goalReached(path.getState());
+        return new SearchResult(Optional.of(path), statesVisited);
+    }
+
+    /**
+     * Joins the forward path with the backward path which end in the same state.
+     * Costs are accumulated from the initial state like in a forward search.
+     * @param forward node of the forward search
+     * @param backward node of the backward search
+     * @param succ successor function used to find the costs of the backward transitions
+     * @return node of the goal state of the joined path
+     */
+    private static Node join(Node forward, Node backward, Function<String, ? extends Collection<Transition>> succ) {
+        Node node = forward;
+        for (Node b = backward; b.getParent() != null; b = b.getParent()) {
+            String next = b.getParent().getState();
+            double cost = Double.POSITIVE_INFINITY;
+            for (Transition t : succ.apply(node.getState())) {
+                if (t.getState().equals(next))
+                    cost = Math.min(cost, t.getCost());
+            }
+            node = new Node(node, next, cost + node.getCost());
+        }
+        return node;
+    }
+
+    /**
+     * Returns the transitions sorted by state name.
+     */
+    private static List<Transition> sortedByName(Set<Transition> transitions) {
+        List<Transition> sorted = new ArrayList<>(transitions);
+        sorted.sort(Transition.BY_NAME);
+        return sorted;
+    }
+}
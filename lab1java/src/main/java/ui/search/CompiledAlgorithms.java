@@ -0,0 +1,254 @@
+package ui.search;
+
+import ui.descriptor.CompiledStateSpace;
+import ui.node.Node;
+
+import java.util.Optional;
+
+/**
+ * Holds implementations of search algorithms which run on the compiled state space.
+ * Results are the same as the ones of {@link Algorithms}.
+ */
+public class CompiledAlgorithms {
+
+    /**
+     * Breadth first search
+     * @param css compiled state space
+     * @return result of search
+     */
+    public static SearchResult bfs(CompiledStateSpace css) {
+        return bfs(css, SearchListener.NONE);
+    }
+
+    /**
+     * Breadth first search
+     * @param css compiled state space
+     * @param listener listener notified about the events of the search
+     * @return result of search
+     */
+    public static SearchResult bfs(CompiledStateSpace css, SearchListener listener) {
+        int[] offsets = css.getOffsets();
+        int[] targets = css.getTargets();
+        double[] costs = css.getCosts();
+
+        int n = css.getStateCount();
+        int[] parent = new int[n];
+        double[] g = new double[n];
+        // states that were either visited or added to open
+        boolean[] seen = new boolean[n];
+        int[] open = new int[n];
+        int head = 0, tail = 0;
+
+        int s0 = css.getInitialState();
+        parent[s0] = -1;
+        seen[s0] = true;
+        open[tail++] = s0;
+
+        int statesVisited = 0;
+
+        while (head < tail) {
+            int s = open[head++];
+            statesVisited++;
+            listener.expanded(css.getName(s));
+            if (css.isFinal(s)) {
+                listener.goalReached(css.getName(s));
+                return new SearchResult(Optional.of(toNode(css, parent, g, s)), statesVisited);
+            }
+
+            // rows are sorted by state name
+            for (int e = offsets[s], end = offsets[s + 1]; e < end; e++) {
+                int m = targets[e];
+                if (seen[m]) {
+                    listener.duplicate(css.getName(m));
+                    continue;
+                }
+
+                seen[m] = true;
+                parent[m] = s;
+                g[m] = costs[e] + g[s];
+                open[tail++] = m;
+                listener.generated(css.getName(m));
+            }
+            listener.openSize(tail - head);
+        }
+        return new SearchResult(Optional.empty(), statesVisited);
+    }
+
+    /**
+     * Uniform cost search
+     * @param css compiled state space
+     * @return result of search
+     */
+    public static SearchResult ucs(CompiledStateSpace css) {
+        return ucs(css, SearchListener.NONE);
+    }
+
+    /**
+     * Uniform cost search
+     * @param css compiled state space
+     * @param listener listener notified about the events of the search
+     * @return result of search
+     */
+    public static SearchResult ucs(CompiledStateSpace css, SearchListener listener) {
+        return ucs(css, css.getInitialState(), listener);
+    }
+
+    /**
+     * Uniform cost search from the given state
+     * @param css compiled state space
+     * @param s0 id of the start state
+     * @param listener listener notified about the events of the search
+     * @return result of search
+     */
+    public static SearchResult ucs(CompiledStateSpace css, int s0, SearchListener listener) {
+        int[] offsets = css.getOffsets();
+        int[] targets = css.getTargets();
+        double[] costs = css.getCosts();
+
+        int n = css.getStateCount();
+        int[] parent = new int[n];
+        double[] g = new double[n];
+        boolean[] visited = new boolean[n];
+        IntPriorityQueue open = new IntPriorityQueue(n);
+
+        parent[s0] = -1;
+        open.offer(s0, 0);
+
+        int statesVisited = 0;
+
+        while (!open.isEmpty()) {
+            int s = open.poll();
+            statesVisited++;
+            listener.expanded(css.getName(s));
+            if (css.isFinal(s)) {
+                listener.goalReached(css.getName(s));
+                return new SearchResult(Optional.of(toNode(css, parent, g, s)), statesVisited);
+            }
+            visited[s] = true;
+
+            for (int e = offsets[s], end = offsets[s + 1]; e < end; e++) {
+                int m = targets[e];
+                if (visited[m]) {
+                    listener.duplicate(css.getName(m));
+                    continue;
+                }
+
+                double cost = costs[e] + g[s];
+                if (!open.contains(m)) {
+                    parent[m] = s;
+                    g[m] = cost;
+                    open.offer(m, cost);
+                    listener.generated(css.getName(m));
+                } else if (cost < g[m]) {
+                    parent[m] = s;
+                    g[m] = cost;
+                    open.decreaseKey(m, cost);
+                    listener.generated(css.getName(m));
+                    listener.decreasedKey(css.getName(m));
+                } else {
+                    listener.duplicate(css.getName(m));
+                }
+            }
+            listener.openSize(open.size());
+        }
+        return new SearchResult(Optional.empty(), statesVisited);
+    }
+
+    /**
+     * A* search algorithm
+     * @param css compiled state space
+     * @param h heuristic values indexed by state id
+     * @return result of search
+     */
+    public static SearchResult astar(CompiledStateSpace css, double[] h) {
+        return astar(css, h, SearchListener.NONE);
+    }
+
+    /**
+     * A* search algorithm
+     * @param css compiled state space
+     * @param h heuristic values indexed by state id
+     * @param listener listener notified about the events of the search
+     * @return result of search
+     */
+    public static SearchResult astar(CompiledStateSpace css, double[] h, SearchListener listener) {
+        int[] offsets = css.getOffsets();
+        int[] targets = css.getTargets();
+        double[] costs = css.getCosts();
+
+        int n = css.getStateCount();
+        int[] parent = new int[n];
+        double[] g = new double[n];
+        boolean[] closed = new boolean[n];
+        IntPriorityQueue open = new IntPriorityQueue(n);
+
+        int s0 = css.getInitialState();
+        parent[s0] = -1;
+        open.offer(s0, h[s0]);
+        listener.heuristicEvaluated(css.getName(s0));
+
+        int statesVisited = 0;
+
+        while (!open.isEmpty()) {
+            int s = open.poll();
+            statesVisited++;
+            listener.expanded(css.getName(s));
+            if (css.isFinal(s)) {
+                listener.goalReached(css.getName(s));
+                return new SearchResult(Optional.of(toNode(css, parent, g, s)), statesVisited);
+            }
+            closed[s] = true;
+
+            for (int e = offsets[s], end = offsets[s + 1]; e < end; e++) {
+                int m = targets[e];
+                if (closed[m]) {
+                    listener.duplicate(css.getName(m));
+                    continue;
+                }
+
+                double cost = costs[e] + g[s];
+                double totalCost = cost + h[m];
+                listener.heuristicEvaluated(css.getName(m));
+                if (!open.contains(m)) {
+                    parent[m] = s;
+                    g[m] = cost;
+                    open.offer(m, totalCost);
+                    listener.generated(css.getName(m));
+                } else if (totalCost < open.getPriority(m)) {
+                    parent[m] = s;
+                    g[m] = cost;
+                    open.decreaseKey(m, totalCost);
+                    listener.generated(css.getName(m));
+                    listener.decreasedKey(css.getName(m));
+                } else {
+                    listener.duplicate(css.getName(m));
+                }
+            }
+            listener.openSize(open.size());
+        }
+        return new SearchResult(Optional.empty(), statesVisited);
+    }
+
+    /**
+     * Creates the chain of nodes from the initial state to the given state.
+     * @param css compiled state space
+     * @param parent parent of each state, -1 for the initial state
+     * @param g cost of reaching each state
+     * @param s last state of the path
+     * @return node of the last state
+     */
+    static Node toNode(CompiledStateSpace css, int[] parent, double[] g, int s) {
+        int depth = 0;
+        for (int i = s; i >= 0; i = parent[i])
+            depth++;
+
+        int[] path = new int[depth];
+        for (int i = s, j = depth - 1; i >= 0; i = parent[i], j--)
+            path[j] = i;
+
+        Node node = null;
+        for (int id : path)
+            node = new Node(node, css.getName(id), g[id]);
+        return node;
+    }
+}
@@ -0,0 +1,738 @@
+package ui.search;
+
+import ui.Utils;
+import ui.descriptor.CompiledStateSpace;
+import ui.node.Node;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Contraction hierarchy of a compiled state space, which answers uniform cost queries from
+ * any state without exploring most of the state space.
+ * <p>
+ * States are contracted one by one in the order of their edge difference. When a state is
+ * contracted, a shortcut is added between each pair of its remaining neighbours unless a
+ * bounded witness search finds a path between them which is not more expensive. All final
+ * states lead to an extra goal node with transitions of cost 0, so a query is a point to point
+ * search from the start state to the goal node. It runs Dijkstra's algorithm forward from the
+ * start over the transitions to later contracted states and backward from the goal node over
+ * the transitions from later contracted states, and the shortcuts of the cheapest meeting path
+ * are unpacked into the original transitions through the states they skip.
+ * <p>
+ * The cost is the same as the one of uniform cost search, and so is the path when the cheapest
+ * path is unique. Among equally cheap alternatives seen by the query, the one settled first is
+ * kept, which is the tie-break of uniform cost search, but alternatives hidden by the shortcuts
+ * are not considered, so among paths of equal cost a different one may be found.
+ * <p>
+ * The hierarchy is written to a file in little endian byte order, as a header with the magic
+ * number, the version, the number of states, the number of transitions, the number of shortcuts,
+ * the number of upward and downward transitions and the fingerprint of the state space,
+ * followed by the upward and the downward rows, in which every transition has the state it skips.
+ */
+public class ContractionHierarchy {
+    /** Magic number at the start of every hierarchy file, "UUIH" */
+    private static final int MAGIC = 0x48495555;
+    /** Current version of the format */
+    private static final int VERSION = 3;
+    /** Size of the header in bytes */
+    private static final int HEADER = 36;
+    /** Number of states settled by a witness search before it gives up and a shortcut is added */
+    private static final int WITNESS_LIMIT = 64;
+    /** States whose contraction adds more shortcuts than this many times their transitions are left in the core */
+    private static final int CORE_FACTOR = 2;
+
+    /** Compiled state space */
+    private final CompiledStateSpace css;
+    /** Number of added shortcuts */
+    private final int shortcuts;
+    /** Transitions of state i to later contracted states are stored from upOffsets[i] to upOffsets[i+1] */
+    private final int[] upOffsets;
+    /** Destination state of each upward transition */
+    private final int[] upTargets;
+    /** Cost of each upward transition */
+    private final double[] upCosts;
+    /** State skipped by each upward transition, -1 for an original transition */
+    private final int[] upMiddles;
+    /** Transitions to state i from later contracted states are stored from downOffsets[i] to downOffsets[i+1] */
+    private final int[] downOffsets;
+    /** Source state of each downward transition */
+    private final int[] downSources;
+    /** Cost of each downward transition */
+    private final double[] downCosts;
+    /** State skipped by each downward transition, -1 for an original transition */
+    private final int[] downMiddles;
+    /** Search state of each thread, reset after every query only where it was touched */
+    private final ThreadLocal<Query> queries;
+
+    /**
+     * Constructor.
+     */
+    private ContractionHierarchy(CompiledStateSpace css, int shortcuts, int[] upOffsets, int[] upTargets, double[] upCosts, int[] upMiddles,
+                                 int[] downOffsets, int[] downSources, double[] downCosts, int[] downMiddles) {
+        this.css = css;
+        this.shortcuts = shortcuts;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upCosts = upCosts;
+        this.upMiddles = upMiddles;
+        this.downOffsets = downOffsets;
+        this.downSources = downSources;
+        this.downCosts = downCosts;
+        this.downMiddles = downMiddles;
+        int nodes = upOffsets.length - 1;
+        queries = ThreadLocal.withInitial(() -> new Query(nodes));
+    }
+
+    /**
+     * Builds the contraction hierarchy of the given state space.
+     * @param css compiled state space
+     * @return contraction hierarchy
+     */
+    public static ContractionHierarchy build(CompiledStateSpace css) {
+        int n = css.getStateCount();
+        int[] offsets = css.getOffsets();
+        int[] targets = css.getTargets();
+        double[] costs = css.getCosts();
+
+        // the goal node has the id n
+        int nodes = n + 1;
+        Edges[] out = new Edges[nodes];
+        Edges[] in = new Edges[nodes];
+        for (int v = 0; v < nodes; v++) {
+            out[v] = new Edges();
+            in[v] = new Edges();
+        }
+        for (int s = 0; s < n; s++) {
+            for (int e = offsets[s], end = offsets[s + 1]; e < end; e++) {
+                if (targets[e] == s)
+                    continue;
+                out[s].relax(targets[e], costs[e], -1);
+                in[targets[e]].relax(s, costs[e], -1);
+            }
+            if (css.isFinal(s)) {
+                out[s].relax(n, 0, -1);
+                in[n].relax(s, 0, -1);
+            }
+        }
+
+        Contraction contraction = new Contraction(out, in);
+        IntPriorityQueue order = new IntPriorityQueue(nodes);
+        for (int v = 0; v < nodes; v++)
+            order.offer(v, contraction.priority(v, contraction.contract(v, true)));
+
+        Edges[] up = new Edges[nodes];
+        Edges[] down = new Edges[nodes];
+        int shortcuts = 0;
+        while (!order.isEmpty()) {
+            // priorities change as the neighbours are contracted, so they are updated lazily
+            int v = order.peek();
+            int added = contraction.contract(v, true);
+            double priority = contraction.priority(v, added);
+            order.poll();
+            if (!order.isEmpty() && priority > order.getPriority(order.peek())) {
+                order.offer(v, priority);
+                continue;
+            }
+            if (added > CORE_FACTOR * (in[v].size + out[v].size)) {
+                order.offer(v, priority);
+                break;
+            }
+            shortcuts += contraction.contract(v, false);
+            up[v] = out[v];
+            down[v] = in[v];
+            contraction.remove(v);
+        }
+        // the states which were not contracted form the core, which both searches walk freely
+        while (!order.isEmpty()) {
+            int v = order.poll();
+            up[v] = out[v];
+            down[v] = in[v];
+        }
+
+        int[] upOffsets = new int[nodes + 1];
+        int[] downOffsets = new int[nodes + 1];
+        for (int v = 0; v < nodes; v++) {
+            upOffsets[v + 1] = upOffsets[v] + up[v].size;
+            downOffsets[v + 1] = downOffsets[v] + down[v].size;
+        }
+        int[] upTargets = new int[upOffsets[nodes]];
+        double[] upCosts = new double[upOffsets[nodes]];
+        int[] upMiddles = new int[upOffsets[nodes]];
+        int[] downSources = new int[downOffsets[nodes]];
+        double[] downCosts = new double[downOffsets[nodes]];
+        int[] downMiddles = new int[downOffsets[nodes]];
+        for (int v = 0; v < nodes; v++) {
+            System.arraycopy(up[v].nodes, 0, upTargets, upOffsets[v], up[v].size);
+            System.arraycopy(up[v].costs, 0, upCosts, upOffsets[v], up[v].size);
+            System.arraycopy(up[v].middles, 0, upMiddles, upOffsets[v], up[v].size);
+            System.arraycopy(down[v].nodes, 0, downSources, downOffsets[v], down[v].size);
+            System.arraycopy(down[v].costs, 0, downCosts, downOffsets[v], down[v].size);
+            System.arraycopy(down[v].middles, 0, downMiddles, downOffsets[v], down[v].size);
+        }
+        return new ContractionHierarchy(css, shortcuts, upOffsets, upTargets, upCosts, upMiddles,
+                downOffsets, downSources, downCosts, downMiddles);
+    }
+
+    /**
+     * Loads the contraction hierarchy of the given state space from a file.
+     * @param filePath path to the hierarchy file
+     * @param css compiled state space for which the hierarchy was built
+     * @return contraction hierarchy
+     * @throws IOException if there is a problem with reading the file
+     * @throws IllegalArgumentException if the file is not a hierarchy file of the state space
+     */
+    public static ContractionHierarchy load(String filePath, CompiledStateSpace css) throws IOException {
+        try (FileChannel channel = FileChannel.open(Utils.checkProvidedPath(filePath), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER)
+                throw new IllegalArgumentException("File is not a contraction hierarchy!");
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            if (header.getInt() != MAGIC)
+                throw new IllegalArgumentException("File is not a contraction hierarchy!");
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IllegalArgumentException("Unsupported contraction hierarchy version: " + version);
+            int states = header.getInt();
+            int transitions = header.getInt();
+            int shortcuts = header.getInt();
+            int up = header.getInt();
+            int down = header.getInt();
+            long fingerprint = header.getLong();
+            if (states != css.getStateCount() || transitions != css.getTransitionCount() || fingerprint != css.getFingerprint())
+                throw new IllegalArgumentException("Contraction hierarchy was built for a different state space!");
+            if (up < 0 || down < 0 || channel.size() != size(states, up, down))
+                throw new IllegalArgumentException("Contraction hierarchy file is truncated!");
+
+            ByteBuffer body = map(channel, FileChannel.MapMode.READ_ONLY, HEADER, channel.size() - HEADER);
+            int[] upOffsets = getInts(body, states + 2);
+            int[] upTargets = getInts(body, up);
+            double[] upCosts = getDoubles(body, up);
+            int[] upMiddles = getInts(body, up);
+            int[] downOffsets = getInts(body, states + 2);
+            int[] downSources = getInts(body, down);
+            double[] downCosts = getDoubles(body, down);
+            int[] downMiddles = getInts(body, down);
+            checkRows(upOffsets, upTargets, upCosts, upMiddles);
+            checkRows(downOffsets, downSources, downCosts, downMiddles);
+            return new ContractionHierarchy(css, shortcuts, upOffsets, upTargets, upCosts, upMiddles,
+                    downOffsets, downSources, downCosts, downMiddles);
+        }
+    }
+
+    /**
+     * Checks that the rows of a loaded hierarchy only refer to existing transitions and states.
+     * @throws IllegalArgumentException if a row is out of bounds
+     */
+    private static void checkRows(int[] offsets, int[] nodes, double[] costs, int[] middles) {
+        if (offsets[0] != 0 || offsets[offsets.length - 1] != nodes.length)
+            throw new IllegalArgumentException("Contraction hierarchy file is corrupt!");
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1])
+                throw new IllegalArgumentException("Contraction hierarchy file is corrupt!");
+        }
+        for (int e = 0; e < nodes.length; e++) {
+            if (nodes[e] < 0 || nodes[e] >= offsets.length - 1 || !(costs[e] >= 0)
+                    || middles[e] < -1 || middles[e] >= offsets.length - 1)
+                throw new IllegalArgumentException("Contraction hierarchy file is corrupt!");
+        }
+    }
+
+    /**
+     * Writes the contraction hierarchy to a file.
+     * @param filePath path of the hierarchy file
+     * @throws IOException if there is a problem with writing the file
+     */
+    public void write(String filePath) throws IOException {
+        int states = css.getStateCount();
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+            ByteBuffer buffer = map(channel, FileChannel.MapMode.READ_WRITE, 0, size(states, upTargets.length, downSources.length));
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(states).putInt(css.getTransitionCount()).putInt(shortcuts)
+                    .putInt(upTargets.length).putInt(downSources.length).putLong(css.getFingerprint());
+            putInts(buffer, upOffsets);
+            putInts(buffer, upTargets);
+            putDoubles(buffer, upCosts);
+            putInts(buffer, upMiddles);
+            putInts(buffer, downOffsets);
+            putInts(buffer, downSources);
+            putDoubles(buffer, downCosts);
+            putInts(buffer, downMiddles);
+        }
+    }
+
+    /**
+     * Returns the number of shortcuts added while building the hierarchy.
+     * @return number of shortcuts
+     */
+    public int getShortcutCount() {
+        return shortcuts;
+    }
+
+    /**
+     * Finds the cheapest path from the initial state to a final state.
+     * @return result of search
+     */
+    public SearchResult search() {
+        return search(css.getInitialState());
+    }
+
+    /**
+     * Finds the cheapest path from the given state to a final state.
+     * @param start start state
+     * @return result of search
+     * @throws IllegalArgumentException if the state does not exist
+     */
+    public SearchResult search(String start) {
+        int source = css.getId(start);
+        if (source < 0)
+            throw new IllegalArgumentException("State does not exist: " + start);
+        return search(source);
+    }
+
+    /**
+     * Finds the cheapest path from the state with the given id to a final state.
+     * @param source id of the start state
+     * @return result of search
+     */
+    public SearchResult search(int source) {
+        int goal = upOffsets.length - 2;
+        Query query = queries.get();
+        Direction forward = query.forward;
+        Direction backward = query.backward;
+        forward.reset(source);
+        backward.reset(goal);
+        query.settled = 0;
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        while (true) {
+            double f = forward.open.isEmpty() ? Double.POSITIVE_INFINITY : forward.open.getPriority(forward.open.peek());
+            double b = backward.open.isEmpty() ? Double.POSITIVE_INFINITY : backward.open.getPriority(backward.open.peek());
+            if (Math.min(f, b) >= best)
+                break;
+            boolean forwardTurn = f <= b;
+            int s = (forwardTurn ? forward : backward).open.poll();
+            // the first meeting state of the cheapest cost is kept, like the first goal of uniform cost search
+            if (forward.g[s] + backward.g[s] < best) {
+                best = forward.g[s] + backward.g[s];
+                meeting = s;
+            }
+            if (forwardTurn)
+                settle(query, forward, upOffsets, upTargets, upCosts, s);
+            else
+                settle(query, backward, downOffsets, downSources, downCosts, s);
+        }
+        if (meeting < 0)
+            return new SearchResult(Optional.empty(), query.settled);
+
+        // the transitions of the meeting path in order, each of them is unpacked in turn
+        Deque<Segment> segments = new ArrayDeque<>();
+        for (int s = meeting; s != source; s = forward.parent[s]) {
+            int e = forward.edge[s];
+            segments.push(new Segment(forward.parent[s], s, upCosts[e], upMiddles[e]));
+        }
+        List<Segment> path = new ArrayList<>(segments);
+        for (int s = meeting; s != goal; s = backward.parent[s]) {
+            int e = backward.edge[s];
+            path.add(new Segment(s, backward.parent[s], downCosts[e], downMiddles[e]));
+        }
+
+        Node node = new Node(css.getName(source));
+        Deque<Segment> stack = new ArrayDeque<>();
+        for (Segment segment : path) {
+            stack.push(segment);
+            while (!stack.isEmpty()) {
+                Segment top = stack.pop();
+                if (top.middle >= 0) {
+                    // the skipped state was contracted before both ends of the shortcut
+                    stack.push(upSegment(top.middle, top.to));
+                    stack.push(downSegment(top.from, top.middle));
+                } else if (top.to != goal) {
+                    node = new Node(node, css.getName(top.to), node.getCost() + top.cost);
+                }
+            }
+        }
+        return new SearchResult(Optional.of(node), query.settled);
+    }
+
+    /**
+     * Returns the transition from the given state to a later contracted state.
+     * @throws IllegalStateException if there is no such transition
+     */
+    private Segment upSegment(int from, int to) {
+        for (int e = upOffsets[from], end = upOffsets[from + 1]; e < end; e++) {
+            if (upTargets[e] == to)
+                return new Segment(from, to, upCosts[e], upMiddles[e]);
+        }
+        throw new IllegalStateException("Contraction hierarchy is missing a transition: " + from + " -> " + to);
+    }
+
+    /**
+     * Returns the transition to the given state from a later contracted state.
+     * @throws IllegalStateException if there is no such transition
+     */
+    private Segment downSegment(int from, int to) {
+        for (int e = downOffsets[to], end = downOffsets[to + 1]; e < end; e++) {
+            if (downSources[e] == from)
+                return new Segment(from, to, downCosts[e], downMiddles[e]);
+        }
+        throw new IllegalStateException("Contraction hierarchy is missing a transition: " + from + " -> " + to);
+    }
+
+    /**
+     * Relaxes the transitions of a state which was just removed from the queue of the given direction.
+     * A state keeps the parent which reached it first at its cost, like in uniform cost search.
+     */
+    private static void settle(Query query, Direction direction, int[] offsets, int[] neighbours, double[] costs, int s) {
+        query.settled++;
+        for (int e = offsets[s], end = offsets[s + 1]; e < end; e++) {
+            int m = neighbours[e];
+            double cost = direction.g[s] + costs[e];
+            if (cost < direction.g[m])
+                direction.reach(m, cost, s, e);
+        }
+    }
+
+    /**
+     * Returns the size of a hierarchy file in bytes.
+     */
+    private static long size(int states, int up, int down) {
+        return HEADER + 8L * (states + 2) + 16L * up + 16L * down;
+    }
+
+    /**
+     * Reads the given number of integers.
+     */
+    private static int[] getInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++)
+            values[i] = buffer.getInt();
+        return values;
+    }
+
+    /**
+     * Reads the given number of doubles.
+     */
+    private static double[] getDoubles(ByteBuffer buffer, int count) {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++)
+            values[i] = buffer.getDouble();
+        return values;
+    }
+
+    /**
+     * Writes the integers.
+     */
+    private static void putInts(ByteBuffer buffer, int[] values) {
+        for (int value : values)
+            buffer.putInt(value);
+    }
+
+    /**
+     * Writes the doubles.
+     */
+    private static void putDoubles(ByteBuffer buffer, double[] values) {
+        for (double value : values)
+            buffer.putDouble(value);
+    }
+
+    /**
+     * Maps a part of the file in little endian byte order.
+     */
+    private static ByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Contraction hierarchy file is too large: " + size);
+        return channel.map(mode, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Transition of a path, which is a shortcut if it skips a state.
+     */
+    private static class Segment {
+        final int from;
+        final int to;
+        final double cost;
+        /** Skipped state, -1 for an original transition */
+        final int middle;
+
+        Segment(int from, int to, double cost, int middle) {
+            this.from = from;
+            this.to = to;
+            this.cost = cost;
+            this.middle = middle;
+        }
+    }
+
+    /**
+     * Search state of one thread.
+     */
+    private static class Query {
+        final Direction forward;
+        final Direction backward;
+        /** Number of states settled by the current query */
+        int settled;
+
+        Query(int nodes) {
+            forward = new Direction(nodes);
+            backward = new Direction(nodes);
+        }
+    }
+
+    /**
+     * State of one direction of a query.
+     */
+    private static class Direction {
+        /** Cost of reaching each state */
+        final double[] g;
+        /** Parent of each state */
+        final int[] parent;
+        /** Transition from the parent of each state */
+        final int[] edge;
+        final IntPriorityQueue open;
+        /** States reached since the last reset */
+        int[] reached = new int[16];
+        int reachedSize;
+
+        Direction(int nodes) {
+            g = new double[nodes];
+            Arrays.fill(g, Double.POSITIVE_INFINITY);
+            parent = new int[nodes];
+            edge = new int[nodes];
+            open = new IntPriorityQueue(nodes);
+        }
+
+        /**
+         * Forgets the states reached by the previous search and starts a new one from the given state.
+         */
+        void reset(int start) {
+            for (int i = 0; i < reachedSize; i++)
+                g[reached[i]] = Double.POSITIVE_INFINITY;
+            reachedSize = 0;
+            open.clear();
+            reach(start, 0, -1, -1);
+        }
+
+        /**
+         * Lowers the cost of reaching the state through the given transition and adds it to the queue.
+         */
+        void reach(int s, double cost, int from, int e) {
+            if (g[s] == Double.POSITIVE_INFINITY) {
+                if (reachedSize == reached.length)
+                    reached = Arrays.copyOf(reached, reachedSize * 2);
+                reached[reachedSize++] = s;
+            }
+            g[s] = cost;
+            parent[s] = from;
+            edge[s] = e;
+            if (open.contains(s))
+                open.decreaseKey(s, cost);
+            else
+                open.offer(s, cost);
+        }
+    }
+
+    /**
+     * Transitions of a state which is not contracted yet, at most one to every other state.
+     */
+    private static class Edges {
+        int[] nodes = new int[4];
+        double[] costs = new double[4];
+        /** State skipped by each transition, -1 for an original transition */
+        int[] middles = new int[4];
+        int size;
+
+        /**
+         * Adds the transition or lowers the cost of the existing one.
+         * @return true if the transition was added or changed
+         */
+        boolean relax(int node, double cost, int middle) {
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] != node)
+                    continue;
+                if (cost >= costs[i])
+                    return false;
+                costs[i] = cost;
+                middles[i] = middle;
+                return true;
+            }
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                costs = Arrays.copyOf(costs, size * 2);
+                middles = Arrays.copyOf(middles, size * 2);
+            }
+            nodes[size] = node;
+            costs[size] = cost;
+            middles[size] = middle;
+            size++;
+            return true;
+        }
+
+        /**
+         * Removes the transition to the given state if there is one.
+         */
+        void remove(int node) {
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] != node)
+                    continue;
+                size--;
+                nodes[i] = nodes[size];
+                costs[i] = costs[size];
+                middles[i] = middles[size];
+                return;
+            }
+        }
+    }
+
+    /**
+     * Graph of the states which are not contracted yet, with the witness search over it.
+     */
+    private static class Contraction {
+        /** Transitions from each state */
+        final Edges[] out;
+        /** Transitions to each state */
+        final Edges[] in;
+        /** Number of contracted neighbours of each state */
+        final int[] contractedNeighbours;
+        /** Cost of reaching each state in the current witness search */
+        final double[] distance;
+        /** Marks the targets of the current witness search with its number */
+        final int[] target;
+        /** Number of the current witness search */
+        int search;
+        /** States reached by the current witness search */
+        int[] reached = new int[16];
+        int reachedSize;
+        final IntPriorityQueue open;
+
+        Contraction(Edges[] out, Edges[] in) {
+            this.out = out;
+            this.in = in;
+            contractedNeighbours = new int[out.length];
+            distance = new double[out.length];
+            target = new int[out.length];
+            Arrays.fill(distance, Double.POSITIVE_INFINITY);
+            open = new IntPriorityQueue(out.length);
+        }
+
+        /**
+         * Returns the priority of the state, which is the number of shortcuts its contraction adds
+         * minus the number of its transitions plus the number of its contracted neighbours.
+         */
+        double priority(int v, int shortcuts) {
+            return shortcuts - in[v].size - out[v].size + contractedNeighbours[v];
+        }
+
+        /**
+         * Adds the shortcuts needed to contract the state.
+         * @param simulate true to only count the shortcuts
+         * @return number of shortcuts
+         */
+        int contract(int v, boolean simulate) {
+            Edges to = out[v];
+            if (to.size == 0)
+                return 0;
+            double maxCost = 0;
+            for (int j = 0; j < to.size; j++)
+                maxCost = Math.max(maxCost, to.costs[j]);
+
+            int count = 0;
+            Edges from = in[v];
+            for (int i = 0; i < from.size; i++) {
+                int u = from.nodes[i];
+                double cost = from.costs[i];
+                witness(u, v, cost + maxCost, to);
+                for (int j = 0; j < to.size; j++) {
+                    int w = to.nodes[j];
+                    double shortcut = cost + to.costs[j];
+                    if (w == u || distance[w] <= shortcut)
+                        continue;
+                    if (simulate) {
+                        count++;
+                    } else if (out[u].relax(w, shortcut, v)) {
+                        in[w].relax(u, shortcut, v);
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Removes the contracted state from the transitions of its neighbours.
+         */
+        void remove(int v) {
+            for (int i = 0; i < in[v].size; i++) {
+                out[in[v].nodes[i]].remove(v);
+                contractedNeighbours[in[v].nodes[i]]++;
+            }
+            for (int j = 0; j < out[v].size; j++) {
+                in[out[v].nodes[j]].remove(v);
+                contractedNeighbours[out[v].nodes[j]]++;
+            }
+        }
+
+        /**
+         * Runs a bounded Dijkstra search from the source which avoids the given state
+         * and stops once all the targets are settled.
+         */
+        void witness(int source, int avoid, double limit, Edges targets) {
+            for (int i = 0; i < reachedSize; i++)
+                distance[reached[i]] = Double.POSITIVE_INFINITY;
+            reachedSize = 0;
+            reach(source, 0);
+            open.offer(source, 0);
+
+            search++;
+            int remaining = 0;
+            for (int j = 0; j < targets.size; j++) {
+                if (targets.nodes[j] != source) {
+                    target[targets.nodes[j]] = search;
+                    remaining++;
+                }
+            }
+
+            int settled = 0;
+            while (!open.isEmpty() && remaining > 0) {
+                int s = open.poll();
+                if (++settled > WITNESS_LIMIT)
+                    break;
+                if (target[s] == search)
+                    remaining--;
+                Edges edges = out[s];
+                for (int e = 0; e < edges.size; e++) {
+                    int m = edges.nodes[e];
+                    double cost = distance[s] + edges.costs[e];
+                    if (m == avoid || cost > limit || cost >= distance[m])
+                        continue;
+                    reach(m, cost);
+                    if (open.contains(m))
+                        open.decreaseKey(m, cost);
+                    else
+                        open.offer(m, cost);
+                }
+            }
+            open.clear();
+        }
+
+        /**
+         * Sets the distance of a state reached by the witness search.
+         */
+        void reach(int s, double cost) {
+            if (distance[s] == Double.POSITIVE_INFINITY) {
+                if (reachedSize == reached.length)
+                    reached = Arrays.copyOf(reached, reachedSize * 2);
+                reached[reachedSize++] = s;
+            }
+            distance[s] = cost;
+        }
+    }
+}
@@ -0,0 +1,801 @@
+package ui.search;
+
+import ui.data.Transition;
+import ui.node.Node;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Holds implementations of search algorithms which keep open and closed states on disk, so only
+ * a bounded number of states is held in memory.
+ * <p>
+ * Duplicates are detected with a delay. Generated states are collected in memory and spilled
+ * to sorted runs when the budget is full. Every layer of states with the lowest key is merged
+ * out of the runs, where the copies of a state are next to each other, and then merged with the
+ * sorted file of closed states, so no state is looked up on its own. The expanded states are
+ * logged with the position of their parent, which is used to rebuild the path.
+ * <p>
+ * Within a layer states are expanded in the same order as in the search algorithms which keep
+ * everything in memory, so the path and the number of visited states are the same as the ones
+ * of {@link Algorithms#bfs(String, Function, Predicate)} and
+ * {@link Algorithms#ucs(String, Function, Predicate)}. The only exception are transitions of
+ * cost 0 in uniform cost search, because the states reached through them are expanded after
+ * the rest of their layer.
+ */
+public class ExternalMemoryAlgorithms {
+    /** Size of the buffer of every open file in bytes */
+    private static final int BUFFER = 1 << 16;
+    /** Number of runs of the same level which are merged into one run */
+    private static final int MAX_RUNS = 16;
+    /** Size of a record without the name of its state in bytes */
+    private static final int RECORD = 32;
+
+    /** Order of open states, the first copy of a state is the one generated first */
+    private static final Comparator<Record> BY_KEY = Comparator.<Record>comparingDouble(r -> r.key)
+            .thenComparing(r -> r.state)
+            .thenComparingLong(r -> r.parent)
+            .thenComparingInt(r -> r.index);
+    /** Order in which the states were generated */
+    private static final Comparator<Record> BY_GENERATION = Comparator.<Record>comparingLong(r -> r.parent)
+            .thenComparingInt(r -> r.index);
+
+    /**
+     * Breadth first search which keeps its states on disk.
+     * @param s0 initial state
+     * @param succ successor function sorted by state name
+     * @param goal goal function
+     * @param budget largest number of open and of closed states held in memory
+     * @return result of search
+     * @throws IOException if there is a problem with the temporary files
+     */
+    public static SearchResult bfs(String s0, Function<String, ? extends Collection<Transition>> succ, Predicate<String> goal, int budget) throws IOException {
+        return bfs(s0, succ, goal, budget, SearchListener.NONE);
+    }
+
+    /**
+     * Breadth first search which keeps its states on disk. The states of a depth are expanded
+     * in the order in which they were generated.
+     * @param s0 initial state
+     * @param succ successor function sorted by state name
+     * @param goal goal function
+     * @param budget largest number of open and of closed states held in memory
+     * @param listener listener notified about the events of the search
+     * @return result of search
+     * @throws IOException if there is a problem with the temporary files
+     */
+    public static SearchResult bfs(String s0, Function<String, ? extends Collection<Transition>> succ, Predicate<String> goal, int budget, SearchListener listener) throws IOException {
+        return search(s0, succ, goal, budget, false, listener);
+    }
+
+    /**
+     * Uniform cost search which keeps its states on disk.
+     * @param s0 initial state
+     * @param succ successor function
+     * @param goal goal function
+     * @param budget largest number of open and of closed states held in memory
+     * @return result of search
+     * @throws IOException if there is a problem with the temporary files
+     */
+    public static SearchResult ucs(String s0, Function<String, ? extends Collection<Transition>> succ, Predicate<String> goal, int budget) throws IOException {
+        return ucs(s0, succ, goal, budget, SearchListener.NONE);
+    }
+
+    /**
+     * Uniform cost search which keeps its states on disk. The states of a cost are expanded
+     * in the order of their names.
+     * @param s0 initial state
+     * @param succ successor function
+     * @param goal goal function
+     * @param budget largest number of open and of closed states held in memory
+     * @param listener listener notified about the events of the search
+     * @return result of search
+     * @throws IOException if there is a problem with the temporary files
+     */
+    public static SearchResult ucs(String s0, Function<String, ? extends Collection<Transition>> succ, Predicate<String> goal, int budget, SearchListener listener) throws IOException {
+        return search(s0, succ, goal, budget, true, listener);
+    }
+
+    /**
+     * Expands the layers of states with the lowest key, which is the cost for uniform cost
+     * search and the depth for breadth first search.
+     */
+    private static SearchResult search(String s0, Function<String, ? extends Collection<Transition>> succ, Predicate<String> goal,
+                                       int budget, boolean uniformCost, SearchListener listener) throws IOException {
+        if (budget < 1) throw new IllegalArgumentException("Budget must be at least 1!");
+
+        Storage storage = new Storage(Files.createTempDirectory("search"));
+        Closed closed = new Closed(storage, budget);
+        try (Frontier open = new Frontier(storage, budget); Expanded expanded = new Expanded(storage)) {
+            open.add(new Record(0, 0, -1, 0, s0));
+
+            int statesVisited = 0;
+            while (!open.isEmpty()) {
+                Path layer = nextLayer(open, closed, storage, listener);
+                // the layer is sorted by name, which is the order of uniform cost search
+                if (!uniformCost)
+                    layer = sort(layer, BY_GENERATION, budget, storage);
+
+                try (RunReader reader = new RunReader(layer)) {
+                    for (Record r = reader.next(); r != null; r = reader.next()) {
+                        long rank = expanded.add(r);
+                        statesVisited++;
+                        listener.expanded(r.state);
+                        if (goal.test(r.state)) {
+                            listener.goalReached(r.state);
+                            return new SearchResult(Optional.of(expanded.toNode(rank)), statesVisited);
+                        }
+
+                        int index = 0;
+                        for (Transition m : succ.apply(r.state)) {
+                            double cost = m.getCost() + r.cost;
+                            open.add(new Record(uniformCost ? cost : r.key + 1, cost, rank, index++, m.getState()));
+                            listener.generated(m.getState());
+                        }
+                    }
+                }
+                Files.delete(layer);
+                listener.openSize(open.size());
+            }
+            return new SearchResult(Optional.empty(), statesVisited);
+        } finally {
+            storage.delete();
+        }
+    }
+
+    /**
+     * Merges the open states with the lowest key into a file sorted by name, keeping the first
+     * copy of every state which is not closed, and closes the written states.
+     */
+    private static Path nextLayer(Frontier open, Closed closed, Storage storage, SearchListener listener) throws IOException {
+        Path layer = storage.newFile();
+        int count = 0;
+        try (RunWriter out = new RunWriter(layer); Closed.Cursor cursor = closed.cursor()) {
+            open.beginLayer();
+            String last = null;
+            for (Record r = open.nextInLayer(); r != null; r = open.nextInLayer()) {
+                if (r.state.equals(last) || cursor.contains(r.state)) {
+                    listener.duplicate(r.state);
+                    continue;
+                }
+                last = r.state;
+                out.write(r);
+                count++;
+            }
+            open.endLayer();
+        }
+        closed.addAll(layer, count);
+        return layer;
+    }
+
+    /**
+     * Sorts the records of the file with runs of at most the budget of records and replaces the file.
+     */
+    private static Path sort(Path file, Comparator<Record> order, int budget, Storage storage) throws IOException {
+        List<RunReader> runs = new ArrayList<>();
+        try (RunReader reader = new RunReader(file)) {
+            List<Record> chunk = new ArrayList<>();
+            for (Record r = reader.next(); r != null; r = reader.next()) {
+                chunk.add(r);
+                if (chunk.size() == budget) {
+                    addRun(runs, writeRun(chunk, order, storage), order, storage);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty() || runs.isEmpty())
+                addRun(runs, writeRun(chunk, order, storage), order, storage);
+        }
+        Files.delete(file);
+        return merge(runs, order, storage);
+    }
+
+    /**
+     * Adds the run to the list and merges the runs of the same level into one run of the next
+     * level whenever there are enough of them, so the number of open runs grows only with the
+     * logarithm of the number of records.
+     */
+    private static void addRun(List<RunReader> runs, RunReader run, Comparator<Record> order, Storage storage) throws IOException {
+        runs.add(run);
+        while (true) {
+            int level = runs.get(runs.size() - 1).level;
+            int from = runs.size();
+            while (from > 0 && runs.get(from - 1).level == level)
+                from--;
+            if (runs.size() - from < MAX_RUNS)
+                return;
+
+            List<RunReader> same = runs.subList(from, runs.size());
+            RunReader merged = new RunReader(merge(new ArrayList<>(same), order, storage));
+            merged.level = level + 1;
+            merged.advance();
+            same.clear();
+            runs.add(merged);
+        }
+    }
+
+    /**
+     * Sorts the records and writes them to a new run.
+     */
+    private static RunReader writeRun(List<Record> records, Comparator<Record> order, Storage storage) throws IOException {
+        records.sort(order);
+        Path run = storage.newFile();
+        try (RunWriter out = new RunWriter(run)) {
+            for (Record r : records)
+                out.write(r);
+        }
+        RunReader reader = new RunReader(run);
+        reader.advance();
+        return reader;
+    }
+
+    /**
+     * Merges the sorted runs into a new file and deletes them.
+     */
+    private static Path merge(List<RunReader> runs, Comparator<Record> order, Storage storage) throws IOException {
+        Path merged = storage.newFile();
+        PriorityQueue<Source> heads = new PriorityQueue<>((a, b) -> order.compare(a.head, b.head));
+        try (RunWriter out = new RunWriter(merged)) {
+            for (RunReader run : runs) {
+                if (run.head != null)
+                    heads.add(run);
+            }
+            while (!heads.isEmpty()) {
+                Source source = heads.poll();
+                out.write(source.head);
+                source.advance();
+                if (source.head != null)
+                    heads.add(source);
+            }
+        } finally {
+            for (RunReader run : runs)
+                run.delete();
+        }
+        return merged;
+    }
+
+    /**
+     * Generated state with the position of the node it was generated from.
+     */
+    private static final class Record {
+        /** Key by which the layers are ordered */
+        private final double key;
+        /** Cost of the path to the state */
+        private final double cost;
+        /** Position of the parent in the log of expanded states, -1 for the initial state */
+        private final long parent;
+        /** Position of the transition among the successors of the parent */
+        private final int index;
+        /** Name of the state */
+        private final String state;
+
+        private Record(double key, double cost, long parent, int index, String state) {
+            this.key = key;
+            this.cost = cost;
+            this.parent = parent;
+            this.index = index;
+            this.state = state;
+        }
+    }
+
+    /**
+     * Temporary directory of a single search.
+     */
+    private static final class Storage {
+        /** Directory with the files */
+        private final Path directory;
+        /** Number of created files */
+        private int files;
+
+        private Storage(Path directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Returns the path of a new file in the directory.
+         */
+        private Path newFile() {
+            return directory.resolve("run" + files++);
+        }
+
+        /**
+         * Deletes the directory with all remaining files.
+         */
+        private void delete() throws IOException {
+            try (Stream<Path> paths = Files.list(directory)) {
+                for (Path path : (Iterable<Path>) paths::iterator)
+                    Files.deleteIfExists(path);
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Open states, kept in a buffer which is spilled to sorted runs when it holds the budget of records.
+     */
+    private static final class Frontier implements Closeable {
+        /** Storage of the runs */
+        private final Storage storage;
+        /** Largest number of records in the buffer */
+        private final int budget;
+        /** Records which were not spilled yet */
+        private final List<Record> buffer = new ArrayList<>();
+        /** Runs which were not read to the end */
+        private final List<RunReader> runs = new ArrayList<>();
+        /** Sources of the current layer ordered by their next record */
+        private final PriorityQueue<Source> heads = new PriorityQueue<>((a, b) -> BY_KEY.compare(a.head, b.head));
+        /** Source over the sorted buffer while a layer is merged */
+        private BufferSource bufferSource;
+        /** Key of the current layer */
+        private double key;
+        /** Number of records in the runs and the buffer */
+        private long size;
+
+        private Frontier(Storage storage, int budget) {
+            this.storage = storage;
+            this.budget = budget;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private int size() {
+            return (int) Math.min(size, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Adds the record and spills the buffer if it is full.
+         */
+        private void add(Record r) throws IOException {
+            buffer.add(r);
+            size++;
+            if (buffer.size() < budget)
+                return;
+            addRun(runs, writeRun(buffer, BY_KEY, storage), BY_KEY, storage);
+            buffer.clear();
+        }
+
+        /**
+         * Prepares the merge of the records with the lowest key.
+         */
+        private void beginLayer() {
+            buffer.sort(BY_KEY);
+            bufferSource = new BufferSource(buffer);
+            heads.clear();
+            heads.addAll(runs);
+            if (bufferSource.head != null)
+                heads.add(bufferSource);
+            key = heads.isEmpty() ? Double.POSITIVE_INFINITY : heads.peek().head.key;
+        }
+
+        /**
+         * Returns the next record of the current layer in the order of names, or null at the end of the layer.
+         */
+        private Record nextInLayer() throws IOException {
+            Source source = heads.peek();
+            if (source == null || source.head.key != key)
+                return null;
+            heads.poll();
+            Record r = source.head;
+            source.advance();
+            if (source.head != null)
+                heads.add(source);
+            size--;
+            return r;
+        }
+
+        /**
+         * Removes the records of the current layer from the buffer and the runs which were read to the end.
+         */
+        private void endLayer() throws IOException {
+            buffer.subList(0, bufferSource.index).clear();
+            bufferSource = null;
+            for (Iterator<RunReader> it = runs.iterator(); it.hasNext(); ) {
+                RunReader run = it.next();
+                if (run.head == null) {
+                    run.delete();
+                    it.remove();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (RunReader run : runs)
+                run.close();
+        }
+    }
+
+    /**
+     * Closed states, the latest ones in memory and the rest in a file sorted by name.
+     */
+    private static final class Closed {
+        /** Storage of the file */
+        private final Storage storage;
+        /** Largest number of states in memory */
+        private final int budget;
+        /** Closed states which were not written to the file yet */
+        private final TreeSet<String> recent = new TreeSet<>();
+        /** File with the rest of the closed states, null if there is none */
+        private Path file;
+
+        private Closed(Storage storage, int budget) {
+            this.storage = storage;
+            this.budget = budget;
+        }
+
+        /**
+         * Returns a cursor for membership tests of states in ascending order.
+         */
+        private Cursor cursor() throws IOException {
+            return new Cursor(file == null ? null : new RunReader(file));
+        }
+
+        /**
+         * Closes the states of the layer sorted by name, which are not closed yet, and merges all
+         * closed states into a new file when they do not fit in memory.
+         */
+        private void addAll(Path layer, int count) throws IOException {
+            if (recent.size() + count <= budget) {
+                try (RunReader reader = new RunReader(layer)) {
+                    for (Record r = reader.next(); r != null; r = reader.next())
+                        recent.add(r.state);
+                }
+                return;
+            }
+
+            Path merged = storage.newFile();
+            try (RunWriter out = new RunWriter(merged);
+                 RunReader old = file == null ? null : new RunReader(file);
+                 RunReader added = new RunReader(layer)) {
+                Iterator<String> it = recent.iterator();
+                String a = old == null ? null : old.nextName();
+                String b = it.hasNext() ? it.next() : null;
+                Record c = added.next();
+                // the three sources are disjoint, so the smallest name is written every time
+                while (a != null || b != null || c != null) {
+                    String min = a;
+                    if (b != null && (min == null || b.compareTo(min) < 0))
+                        min = b;
+                    if (c != null && (min == null || c.state.compareTo(min) < 0))
+                        min = c.state;
+                    out.writeName(min);
+                    if (min == a)
+                        a = old.nextName();
+                    else if (min == b)
+                        b = it.hasNext() ? it.next() : null;
+                    else
+                        c = added.next();
+                }
+            }
+            if (file != null)
+                Files.delete(file);
+            file = merged;
+            recent.clear();
+        }
+
+        /**
+         * Reads the file of closed states once while states are tested in ascending order.
+         */
+        private final class Cursor implements Closeable {
+            /** Reader of the file, null if there is no file */
+            private final RunReader reader;
+            /** Smallest name in the file which was not passed yet */
+            private String head;
+
+            private Cursor(RunReader reader) throws IOException {
+                this.reader = reader;
+                this.head = reader == null ? null : reader.nextName();
+            }
+
+            /**
+             * Checks whether the state is closed, states must be tested in ascending order.
+             */
+            private boolean contains(String state) throws IOException {
+                while (head != null && head.compareTo(state) < 0)
+                    head = reader.nextName();
+                return state.equals(head) || recent.contains(state);
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (reader != null)
+                    reader.close();
+            }
+        }
+    }
+
+    /**
+     * Log of expanded states, from which the path to a state is rebuilt by following the parents.
+     */
+    private static final class Expanded implements Closeable {
+        /** File with the records of the expanded states */
+        private final Path records;
+        /** File with the position of every record in the file of records */
+        private final Path offsets;
+        /** Writer of the records */
+        private final RunWriter recordWriter;
+        /** Writer of the positions */
+        private final RunWriter offsetWriter;
+        /** Number of expanded states */
+        private long size;
+
+        private Expanded(Storage storage) throws IOException {
+            records = storage.newFile();
+            offsets = storage.newFile();
+            recordWriter = new RunWriter(records);
+            offsetWriter = new RunWriter(offsets);
+        }
+
+        /**
+         * Logs the expanded state and returns its position in the log.
+         */
+        private long add(Record r) throws IOException {
+            offsetWriter.writeLong(recordWriter.position());
+            recordWriter.write(r);
+            return size++;
+        }
+
+        /**
+         * Creates the chain of search tree nodes from the initial state to the logged state.
+         */
+        private Node toNode(long rank) throws IOException {
+            recordWriter.flush();
+            offsetWriter.flush();
+            Deque<Record> path = new ArrayDeque<>();
+            try (FileChannel recordChannel = FileChannel.open(records, StandardOpenOption.READ);
+                 FileChannel offsetChannel = FileChannel.open(offsets, StandardOpenOption.READ)) {
+                ByteBuffer offset = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+                for (long i = rank; i >= 0; ) {
+                    offset.clear();
+                    readFully(offsetChannel, offset, 8 * i);
+                    Record r = RunReader.readAt(recordChannel, offset.getLong(0));
+                    path.push(r);
+                    i = r.parent;
+                }
+            }
+
+            Node node = null;
+            while (!path.isEmpty()) {
+                Record r = path.pop();
+                node = node == null ? new Node(r.state) : new Node(node, r.state, r.cost);
+            }
+            return node;
+        }
+
+        @Override
+        public void close() throws IOException {
+            recordWriter.close();
+            offsetWriter.close();
+        }
+    }
+
+    /**
+     * Reads from the channel at the position until the buffer is full.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int read = channel.read(buf, position);
+            if (read < 0)
+                throw new IOException("Temporary file of external memory search is truncated!");
+            position += read;
+        }
+    }
+
+    /**
+     * Sorted sequence of records which is merged with others.
+     */
+    private abstract static class Source {
+        /** Next record, null at the end */
+        protected Record head;
+
+        /**
+         * Moves to the next record.
+         */
+        protected abstract void advance() throws IOException;
+    }
+
+    /**
+     * Source over the sorted buffer of open states.
+     */
+    private static final class BufferSource extends Source {
+        /** Sorted records */
+        private final List<Record> records;
+        /** Number of records which were passed */
+        private int index;
+
+        private BufferSource(List<Record> records) {
+            this.records = records;
+            this.head = records.isEmpty() ? null : records.get(0);
+        }
+
+        @Override
+        protected void advance() {
+            index++;
+            head = index < records.size() ? records.get(index) : null;
+        }
+    }
+
+    /**
+     * Sequential reader of a file of records or names.
+     */
+    private static final class RunReader extends Source implements Closeable {
+        /** Path of the file */
+        private final Path path;
+        /** Number of times the records of the run were merged */
+        private int level;
+        /** Channel of the file */
+        private final FileChannel channel;
+        /** Buffer with the bytes which were read but not consumed */
+        private ByteBuffer buf = ByteBuffer.allocate(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+
+        private RunReader(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            buf.flip();
+        }
+
+        @Override
+        protected void advance() throws IOException {
+            head = next();
+        }
+
+        /**
+         * Reads the next record, or returns null at the end of the file.
+         */
+        private Record next() throws IOException {
+            if (!fill(RECORD))
+                return null;
+            double key = buf.getDouble();
+            double cost = buf.getDouble();
+            long parent = buf.getLong();
+            int index = buf.getInt();
+            return new Record(key, cost, parent, index, name(buf.getInt()));
+        }
+
+        /**
+         * Reads the next name, or returns null at the end of the file.
+         */
+        private String nextName() throws IOException {
+            if (!fill(4))
+                return null;
+            return name(buf.getInt());
+        }
+
+        private String name(int length) throws IOException {
+            if (!fill(length))
+                throw new IOException("Temporary file of external memory search is truncated!");
+            String name = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.UTF_8);
+            buf.position(buf.position() + length);
+            return name;
+        }
+
+        /**
+         * Makes sure that the buffer holds at least the given number of bytes, unless the file ends.
+         */
+        private boolean fill(int bytes) throws IOException {
+            if (buf.remaining() >= bytes)
+                return true;
+            if (buf.capacity() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+                larger.put(buf);
+                buf = larger;
+            } else {
+                buf.compact();
+            }
+            while (buf.position() < bytes) {
+                if (channel.read(buf) < 0)
+                    break;
+            }
+            buf.flip();
+            return buf.remaining() >= bytes;
+        }
+
+        /**
+         * Reads the record at the given position of the channel.
+         */
+        private static Record readAt(FileChannel channel, long position) throws IOException {
+            ByteBuffer fixed = ByteBuffer.allocate(RECORD).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, fixed, position);
+            fixed.flip();
+            double key = fixed.getDouble();
+            double cost = fixed.getDouble();
+            long parent = fixed.getLong();
+            int index = fixed.getInt();
+            ByteBuffer name = ByteBuffer.allocate(fixed.getInt());
+            readFully(channel, name, position + RECORD);
+            return new Record(key, cost, parent, index, new String(name.array(), StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Closes and deletes the file.
+         */
+        private void delete() throws IOException {
+            close();
+            Files.deleteIfExists(path);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Sequential writer of a file of records, names or positions.
+     */
+    private static final class RunWriter implements Closeable {
+        /** Channel of the file */
+        private final FileChannel channel;
+        /** Buffer with the bytes which were not written yet */
+        private ByteBuffer buf = ByteBuffer.allocate(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        /** Number of bytes written to the channel */
+        private long written;
+
+        private RunWriter(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        }
+
+        /**
+         * Returns the number of bytes written so far.
+         */
+        private long position() {
+            return written + buf.position();
+        }
+
+        private void write(Record r) throws IOException {
+            byte[] name = r.state.getBytes(StandardCharsets.UTF_8);
+            reserve(RECORD + name.length);
+            buf.putDouble(r.key).putDouble(r.cost).putLong(r.parent).putInt(r.index).putInt(name.length).put(name);
+        }
+
+        private void writeName(String state) throws IOException {
+            byte[] name = state.getBytes(StandardCharsets.UTF_8);
+            reserve(4 + name.length);
+            buf.putInt(name.length).put(name);
+        }
+
+        private void writeLong(long value) throws IOException {
+            reserve(8);
+            buf.putLong(value);
+        }
+
+        /**
+         * Makes room for the given number of bytes in the buffer.
+         */
+        private void reserve(int bytes) throws IOException {
+            if (buf.remaining() >= bytes)
+                return;
+            flush();
+            if (buf.capacity() < bytes)
+                buf = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /**
+         * Writes the buffered bytes to the channel.
+         */
+        private void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining())
+                written += channel.write(buf);
+            buf.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            channel.close();
+        }
+    }
+}
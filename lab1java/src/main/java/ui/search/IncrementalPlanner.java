@@ -0,0 +1,249 @@
+package ui.search;
+
+import ui.data.Transition;
+import ui.descriptor.StateSpaceDescriptor;
+import ui.node.Node;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Lifelong planning A* search, which keeps its search state between plans and repairs only
+ * the part of it affected by changed transition costs.
+ * <p>
+ * Every state has a cost g and a one step lookahead cost rhs, which is the lowest cost of
+ * reaching it through a predecessor. A state whose two costs differ is inconsistent and waits
+ * in open ordered by min(g, rhs) + h, then by min(g, rhs) and then by name. A cost update only
+ * makes the destination state inconsistent, so a replan expands the states whose costs really
+ * change instead of the whole state space.
+ * <p>
+ * All final states lead to an extra goal node with transitions of cost 0, so the plan is the
+ * cheapest path to any final state. The heuristic must be consistent, which is checked for every
+ * transition the planner looks at.
+ */
+public class IncrementalPlanner {
+    /** Id of the extra goal node */
+    private static final int GOAL = 0;
+
+    /** State space whose transitions are planned over */
+    private final StateSpaceDescriptor ssd;
+    /** Heuristic function */
+    private final ToDoubleFunction<String> h;
+    /** Names of the states, null for the goal node */
+    private final List<String> names = new ArrayList<>();
+    /** Ids of the states */
+    private final Map<String, Integer> ids = new HashMap<>();
+    /** Cost of reaching each state */
+    private double[] g = new double[16];
+    /** Lowest cost of reaching each state through one of its predecessors */
+    private double[] rhs = new double[16];
+    /** Heuristic value of each state */
+    private double[] hv = new double[16];
+    /** Second part of the key of each state in open */
+    private double[] secondKey = new double[16];
+    /** Inconsistent states */
+    private final IntPriorityQueue open;
+    /** Id of the start state */
+    private final int start;
+
+    /**
+     * Constructor.
+     * @param ssd state space descriptor, whose transitions are changed through {@link #updateCost(String, String, double)}
+     * @param start start state
+     * @param h consistent heuristic function
+     */
+    public IncrementalPlanner(StateSpaceDescriptor ssd, String start, ToDoubleFunction<String> h) {
+        this.ssd = ssd;
+        this.h = h;
+        this.open = new IntPriorityQueue(16, this::compareTies);
+        // the goal node has no name
+        id(null);
+        this.start = id(start);
+        rhs[this.start] = 0;
+        enqueue(this.start);
+    }
+
+    /**
+     * Finds the cheapest path from the start state to a final state, reusing the work of the previous plans.
+     * @return result of search, the number of visited states counts only the states expanded by this plan
+     * @throws IllegalArgumentException if the heuristic is not consistent for a transition that is looked at
+     */
+    public SearchResult plan() {
+        int statesVisited = 0;
+        while (!open.isEmpty() && (before(open.peek(), GOAL) || rhs[GOAL] != g[GOAL])) {
+            int u = open.poll();
+            statesVisited++;
+            if (g[u] > rhs[u]) {
+                g[u] = rhs[u];
+                forEachSuccessor(u, this::updateState);
+            } else {
+                g[u] = Double.POSITIVE_INFINITY;
+                updateState(u);
+                forEachSuccessor(u, this::updateState);
+            }
+        }
+
+        if (g[GOAL] == Double.POSITIVE_INFINITY)
+            return new SearchResult(Optional.empty(), statesVisited);
+        return new SearchResult(Optional.of(path()), statesVisited);
+    }
+
+    /**
+     * Changes the cost of the transition between two states in the state space and marks
+     * the destination state for repair by the next plan.
+     * @param from source state
+     * @param to destination state
+     * @param cost new cost, or infinity to remove the transition
+     * @throws IllegalArgumentException if the cost is negative or not a number, or the heuristic is not consistent with it
+     */
+    public void updateCost(String from, String to, double cost) {
+        ssd.updateTransition(from, to, cost);
+        updateState(id(to));
+    }
+
+    /**
+     * Recomputes the lookahead cost of the state and puts it in open if it is inconsistent.
+     */
+    private void updateState(int s) {
+        if (s != start) {
+            double best = Double.POSITIVE_INFINITY;
+            for (Transition t : s == GOAL ? goalPredecessors() : ssd.PREDECESSOR.apply(names.get(s))) {
+                // the id is taken first, because adding a state replaces the arrays
+                int p = id(t.getState());
+                if (hv[p] > t.getCost() + hv[s])
+                    throw new IllegalArgumentException("Heuristic is not consistent for transition from " + t.getState() + "!");
+                best = Math.min(best, g[p] + t.getCost());
+            }
+            rhs[s] = best;
+        }
+        if (open.contains(s))
+            open.remove(s);
+        if (g[s] != rhs[s])
+            enqueue(s);
+    }
+
+    /**
+     * Calls the action for every successor of the state, including the goal node for final states.
+     */
+    private void forEachSuccessor(int s, IntConsumer action) {
+        if (s == GOAL)
+            return;
+        Set<Transition> transitions = ssd.SUCCESSOR.apply(names.get(s));
+        if (transitions != null) {
+            for (Transition t : transitions)
+                action.accept(id(t.getState()));
+        }
+        if (ssd.isGoal(names.get(s)))
+            action.accept(GOAL);
+    }
+
+    /**
+     * Adds the state to open with its current key.
+     */
+    private void enqueue(int s) {
+        double k = Math.min(g[s], rhs[s]);
+        secondKey[s] = k;
+        open.offer(s, k + hv[s]);
+    }
+
+    /**
+     * Checks whether the state in open has a key not greater than the current key of the given state.
+     * States with a key equal to the goal node are expanded as well, because the goal node stays
+     * consistent while a final state with an outdated cost equal to its own still supports it.
+     */
+    private boolean before(int s, int other) {
+        double k = Math.min(g[other], rhs[other]);
+        int c = Double.compare(open.getPriority(s), k + hv[other]);
+        if (c != 0)
+            return c < 0;
+        return secondKey[s] <= k;
+    }
+
+    /**
+     * Orders states with equal first keys by their second keys and then by name.
+     */
+    private int compareTies(int a, int b) {
+        int c = Double.compare(secondKey[a], secondKey[b]);
+        if (c != 0)
+            return c;
+        if (a == GOAL || b == GOAL)
+            return a == GOAL ? (b == GOAL ? 0 : -1) : 1;
+        return names.get(a).compareTo(names.get(b));
+    }
+
+    /**
+     * Follows the cheapest predecessors back from the goal node. Predecessors with equal
+     * costs are chosen by name, and states already on the path are skipped so that
+     * transitions of cost 0 can not lead around in a cycle.
+     */
+    private Node path() {
+        Deque<Integer> states = new ArrayDeque<>();
+        Deque<Double> costs = new ArrayDeque<>();
+        BitSet onPath = new BitSet();
+        int s = GOAL;
+        while (s != start) {
+            onPath.set(s);
+            int parent = -1;
+            double via = 0;
+            double best = Double.POSITIVE_INFINITY;
+            Collection<Transition> predecessors = s == GOAL ? goalPredecessors() : ssd.PREDECESSOR.apply(names.get(s));
+            for (Transition t : predecessors) {
+                int p = id(t.getState());
+                double cost = g[p] + t.getCost();
+                if (onPath.get(p) || cost == Double.POSITIVE_INFINITY || cost > best)
+                    continue;
+                if (cost < best || names.get(p).compareTo(names.get(parent)) < 0) {
+                    best = cost;
+                    parent = p;
+                    via = t.getCost();
+                }
+            }
+            if (parent < 0)
+                throw new IllegalStateException("Plan has no path to the start state!");
+            if (s != GOAL) {
+                states.push(s);
+                costs.push(via);
+            }
+            s = parent;
+        }
+
+        Node node = new Node(names.get(start));
+        while (!states.isEmpty())
+            node = new Node(node, names.get(states.pop()), node.getCost() + costs.pop());
+        return node;
+    }
+
+    /**
+     * Returns the transitions of cost 0 from the final states to the goal node.
+     */
+    private List<Transition> goalPredecessors() {
+        List<Transition> predecessors = new ArrayList<>();
+        for (String state : ssd.getFinalStates())
+            predecessors.add(new Transition(state, 0));
+        return predecessors;
+    }
+
+    /**
+     * Returns the id of the state, adding it with infinite costs if it was not reached before.
+     */
+    private int id(String state) {
+        Integer id = ids.get(state);
+        if (id != null)
+            return id;
+        int s = names.size();
+        if (s == g.length) {
+            int capacity = s + (s >> 1) + 1;
+            g = Arrays.copyOf(g, capacity);
+            rhs = Arrays.copyOf(rhs, capacity);
+            hv = Arrays.copyOf(hv, capacity);
+            secondKey = Arrays.copyOf(secondKey, capacity);
+        }
+        names.add(state);
+        ids.put(state, s);
+        g[s] = Double.POSITIVE_INFINITY;
+        rhs[s] = Double.POSITIVE_INFINITY;
+        hv[s] = state == null ? 0 : h.applyAsDouble(state);
+        return s;
+    }
+}
@@ -0,0 +1,135 @@
+package ui.search;
+
+import ui.node.Node;
+
+import java.util.*;
+
+/**
+ * Binary heap of nodes which is indexed by state. Every state is contained at most once,
+ * so the node of a state can be found in constant time and replaced by a cheaper one
+ * in logarithmic time.
+ * @param <N> type of node
+ */
+public class IndexedPriorityQueue<N extends Node> {
+    /** Comparator which orders the nodes */
+    private final Comparator<? super N> comparator;
+    /** Heap of nodes */
+    private final List<N> heap = new ArrayList<>();
+    /** Position of each contained state in the heap */
+    private final Map<String, Integer> position = new HashMap<>();
+
+    /**
+     * Constructor.
+     * @param comparator comparator which orders the nodes
+     */
+    public IndexedPriorityQueue(Comparator<? super N> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Checks whether the queue is empty.
+     * @return true if empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    /**
+     * Returns the number of nodes in the queue.
+     * @return number of nodes
+     */
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * Returns the node of the given state.
+     * @param state state
+     * @return node of the state or null if the state is not in the queue
+     */
+    public N get(String state) {
+        Integer i = position.get(state);
+        return i == null ? null : heap.get(i);
+    }
+
+    /**
+     * Adds the node to the queue. The queue must not contain a node with the same state.
+     * @param node node to add
+     */
+    public void offer(N node) {
+        heap.add(node);
+        siftUp(heap.size() - 1, node);
+    }
+
+    /**
+     * Replaces the node with the same state by the given node, which must not be ordered
+     * after the node it replaces.
+     * @param node cheaper node of a contained state
+     */
+    public void decreaseKey(N node) {
+        siftUp(position.get(node.getState()), node);
+    }
+
+    /**
+     * Returns the first node without removing it.
+     * @return first node
+     */
+    public N peek() {
+        return heap.get(0);
+    }
+
+    /**
+     * Removes and returns the first node.
+     * @return first node
+     */
+    public N poll() {
+        N first = heap.get(0);
+        position.remove(first.getState());
+        N last = heap.remove(heap.size() - 1);
+        if (!heap.isEmpty())
+            siftDown(0, last);
+        return first;
+    }
+
+    /**
+     * Places the node at index i and moves it up until the heap property is restored.
+     */
+    private void siftUp(int i, N node) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            N p = heap.get(parent);
+            if (comparator.compare(node, p) >= 0)
+                break;
+            set(i, p);
+            i = parent;
+        }
+        set(i, node);
+    }
+
+    /**
+     * Places the node at index i and moves it down until the heap property is restored.
+     */
+    private void siftDown(int i, N node) {
+        int size = heap.size();
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            N c = heap.get(child);
+            if (child + 1 < size && comparator.compare(heap.get(child + 1), c) < 0)
+                c = heap.get(++child);
+            if (comparator.compare(node, c) <= 0)
+                break;
+            set(i, c);
+            i = child;
+        }
+        set(i, node);
+    }
+
+    /**
+     * Stores the node at the given index and updates its position.
+     */
+    private void set(int i, N node) {
+        heap.set(i, node);
+        position.put(node.getState(), i);
+    }
+}
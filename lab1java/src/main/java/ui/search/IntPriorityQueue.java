@@ -0,0 +1,214 @@
+package ui.search;
+
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Indexed binary min-heap of state ids. Every state is contained at most once and its
+ * priority can be decreased in logarithmic time. States with equal priorities are
+ * ordered by their ids, or by the given tie breaker. The capacity grows when a state
+ * with a larger id is added.
+ */
+public class IntPriorityQueue {
+    /** Heap of state ids */
+    private int[] heap;
+    /** Position of each state in the heap, -1 if it is not contained */
+    private int[] position;
+    /** Priority of each state */
+    private double[] priority;
+    /** Orders states with equal priorities, null to order them by id */
+    private final IntBinaryOperator ties;
+    /** Number of states in the heap */
+    private int size;
+
+    /**
+     * Constructor which orders states with equal priorities by their ids.
+     * @param capacity initial capacity
+     */
+    public IntPriorityQueue(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * Constructor.
+     * @param capacity initial capacity
+     * @param ties compares two state ids with equal priorities, null to compare the ids
+     */
+    public IntPriorityQueue(int capacity, IntBinaryOperator ties) {
+        capacity = Math.max(capacity, 1);
+        heap = new int[capacity];
+        position = new int[capacity];
+        priority = new double[capacity];
+        Arrays.fill(position, -1);
+        this.ties = ties;
+    }
+
+    /**
+     * Checks whether the queue is empty.
+     * @return true if empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of states in the queue.
+     * @return number of states
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the given state is in the queue.
+     * @param id state id
+     * @return true if the state is in the queue, false otherwise
+     */
+    public boolean contains(int id) {
+        return id < position.length && position[id] >= 0;
+    }
+
+    /**
+     * Returns the priority of the given state.
+     * @param id state id
+     * @return priority of the state
+     */
+    public double getPriority(int id) {
+        return priority[id];
+    }
+
+    /**
+     * Adds the state to the queue.
+     * @param id state id which is not in the queue
+     * @param p priority
+     */
+    public void offer(int id, double p) {
+        if (id >= position.length)
+            grow(id + 1);
+        priority[id] = p;
+        heap[size] = id;
+        position[id] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Decreases the priority of a state which is in the queue.
+     * @param id state id
+     * @param p new priority which is not greater than the current one
+     */
+    public void decreaseKey(int id, double p) {
+        priority[id] = p;
+        siftUp(position[id]);
+    }
+
+    /**
+     * Removes the state from the queue.
+     * @param id state id which is in the queue
+     */
+    public void remove(int id) {
+        int i = position[id];
+        position[id] = -1;
+        size--;
+        if (i == size)
+            return;
+        // the last state takes the free place and moves down or up from there
+        int last = heap[size];
+        heap[i] = last;
+        position[last] = i;
+        siftDown(i);
+        if (position[last] == i)
+            siftUp(i);
+    }
+
+    /**
+     * Returns the state with the lowest priority without removing it.
+     * @return state id
+     */
+    public int peek() {
+        return heap[0];
+    }
+
+    /**
+     * Removes and returns the state with the lowest priority.
+     * @return state id
+     */
+    public int poll() {
+        int id = heap[0];
+        position[id] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return id;
+    }
+
+    /**
+     * Removes every state from the queue.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++)
+            position[heap[i]] = -1;
+        size = 0;
+    }
+
+    /**
+     * Checks whether state a should be polled before state b.
+     */
+    private boolean less(int a, int b) {
+        int c = Double.compare(priority[a], priority[b]);
+        if (c != 0)
+            return c < 0;
+        return ties == null ? a < b : ties.applyAsInt(a, b) < 0;
+    }
+
+    /**
+     * Grows the arrays so they can hold the given number of states.
+     */
+    private void grow(int capacity) {
+        int old = position.length;
+        capacity = Math.max(capacity, old + (old >> 1) + 1);
+        heap = Arrays.copyOf(heap, capacity);
+        position = Arrays.copyOf(position, capacity);
+        priority = Arrays.copyOf(priority, capacity);
+        Arrays.fill(position, old, capacity, -1);
+    }
+
+    /**
+     * Moves the element at index i up until the heap property is restored.
+     */
+    private void siftUp(int i) {
+        int id = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(id, heap[parent]))
+                break;
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = id;
+        position[id] = i;
+    }
+
+    /**
+     * Moves the element at index i down until the heap property is restored.
+     */
+    private void siftDown(int i) {
+        int id = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && less(heap[child + 1], heap[child]))
+                child++;
+            if (!less(heap[child], id))
+                break;
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = id;
+        position[id] = i;
+    }
+}
@@ -0,0 +1,367 @@
+package ui.search;
+
+import ui.data.Transition;
+import ui.node.Node;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Holds implementations of heuristic search algorithms with bounded memory. Both algorithms
+ * search the tree of paths and only avoid cycles along the current path, so they trade
+ * re-expansions for memory.
+ */
+public class MemoryBoundedAlgorithms {
+
+    /**
+     * Iterative deepening A* search. Runs depth first searches bounded by the total cost,
+     * raising the bound to the lowest total cost that exceeded it in the previous iteration.
+     * Memory is proportional to the depth of the search.
+     * @param s0 initial state
+     * @param succ successor function sorted by state name
+     * @param goal goal function
+     * @param h heuristic function
+     * @return result of search
+     */
+    public static SearchResult idastar(String s0, Function<String, List<Transition>> succ, Predicate<String> goal, ToDoubleFunction<String> h) {
+        return idastar(s0, succ, goal, h, SearchListener.NONE);
+    }
+
+    /**
+     * Iterative deepening A* search. Runs depth first searches bounded by the total cost,
+     * raising the bound to the lowest total cost that exceeded it in the previous iteration.
+     * Memory is proportional to the depth of the search.
+     * @param s0 initial state
+     * @param succ successor function sorted by state name
+     * @param goal goal function
+     * @param h heuristic function
+     * @param listener listener notified about the events of all iterations
+     * @return result of search
+     */
+    public static SearchResult idastar(String s0, Function<String, List<Transition>> succ, Predicate<String> goal,
+                                       ToDoubleFunction<String> h, SearchListener listener) {
+        double bound = h.applyAsDouble(s0);
+        listener.heuristicEvaluated(s0);
+        int statesVisited = 0;
+
+        while (true) {
+            double next = Double.POSITIVE_INFINITY;
+            // states on the current path, used to avoid cycles
+            Set<String> onPath = new HashSet<>();
+            Deque<Frame> stack = new ArrayDeque<>();
+            stack.push(new Frame(new Node(s0)));
+            onPath.add(s0);
+
+            while (!stack.isEmpty()) {
+                Frame top = stack.peek();
+                if (top.successors == null) {
+                    statesVisited++;
+                    listener.expanded(top.node.getState());
+                    if (goal.test(top.node.getState())) {
+                        listener.goalReached(top.node.getState());
+                        return new SearchResult(Optional.of(top.node), statesVisited);
+                    }
+                    top.successors = succ.apply(top.node.getState());
+                }
+
+                if (top.index == top.successors.size()) {
+                    stack.pop();
+                    onPath.remove(top.node.getState());
+                    continue;
+                }
+
+                Transition m = top.successors.get(top.index++);
+                if (onPath.contains(m.getState())) {
+                    listener.duplicate(m.getState());
+                    continue;
+                }
+
+                double cost = m.getCost() + top.node.getCost();
+                double totalCost = cost + h.applyAsDouble(m.getState());
+                listener.heuristicEvaluated(m.getState());
+                if (totalCost > bound) {
+                    next = Math.min(next, totalCost);
+                    continue;
+                }
+                stack.push(new Frame(new Node(top.node, m.getState(), cost)));
+                onPath.add(m.getState());
+                listener.generated(m.getState());
+                listener.openSize(stack.size());
+            }
+
+            if (next == Double.POSITIVE_INFINITY) {
+                return new SearchResult(Optional.empty(), statesVisited);
+            }
+            bound = next;
+        }
+    }
+
+    /**
+     * Simplified memory-bounded A* search. Works like A* until the number of nodes in memory
+     * exceeds the given limit, then it forgets the shallowest leaf with the highest total cost
+     * and remembers its cost in the parent. The total costs are backed up from the successors to
+     * the ancestors, and a forgotten successor is regenerated only when it becomes the best option
+     * again. Finds the optimal solution if its path fits into memory.
+     * @param s0 initial state
+     * @param succ successor function sorted by state name
+     * @param goal goal function
+     * @param h heuristic function
+     * @param memory maximum number of nodes in memory, at least 1
+     * @return result of search
+     */
+    public static SearchResult smastar(String s0, Function<String, List<Transition>> succ, Predicate<String> goal, ToDoubleFunction<String> h, int memory) {
+        return smastar(s0, succ, goal, h, memory, SearchListener.NONE);
+    }
+
+    /**
+     * Simplified memory-bounded A* search. Works like A* until the number of nodes in memory
+     * exceeds the given limit, then it forgets the shallowest leaf with the highest total cost
+     * and remembers its cost in the parent. The total costs are backed up from the successors to
+     * the ancestors, and a forgotten successor is regenerated only when it becomes the best option
+     * again. Finds the optimal solution if its path fits into memory.
+     * @param s0 initial state
+     * @param succ successor function sorted by state name
+     * @param goal goal function
+     * @param h heuristic function
+     * @param memory maximum number of nodes in memory, at least 1
+     * @param listener listener notified about the events of the search
+     * @return result of search
+     */
+    public static SearchResult smastar(String s0, Function<String, List<Transition>> succ, Predicate<String> goal,
+                                       ToDoubleFunction<String> h, int memory, SearchListener listener) {
+        // nodes with something to expand ordered by priority, deeper first, so the last leaf is the first to be forgotten
+        NavigableSet<BoundedNode> open = new TreeSet<>(BoundedNode.ORDER);
+        long ids = 0;
+        BoundedNode root = new BoundedNode(ids++, null, -1, s0, 0, h.applyAsDouble(s0));
+        listener.heuristicEvaluated(s0);
+        queue(open, root);
+        int used = 1;
+        int statesVisited = 0;
+
+        while (!open.isEmpty()) {
+            BoundedNode n = open.pollFirst();
+            if (n.priority == Double.POSITIVE_INFINITY) {
+                break;
+            }
+            statesVisited++;
+            listener.expanded(n.state);
+            // a regenerated successor is kept while other leaves can be forgotten, otherwise it could be forgotten right away
+            BoundedNode regenerated = null;
+
+            if (n.successors == null) {
+                if (goal.test(n.state)) {
+                    listener.goalReached(n.state);
+                    return new SearchResult(Optional.of(n.toNode()), statesVisited);
+                }
+
+                List<Transition> successors = new ArrayList<>();
+                for (Transition m : succ.apply(n.state)) {
+                    if (n.isOnPath(m.getState()))
+                        listener.duplicate(m.getState());
+                    else
+                        successors.add(m);
+                }
+                n.successors = successors;
+                n.children = new BoundedNode[successors.size()];
+                n.forgotten = new double[successors.size()];
+
+                for (int i = 0; i < successors.size(); i++) {
+                    Transition m = successors.get(i);
+                    double cost = m.getCost() + n.cost;
+                    BoundedNode child = new BoundedNode(ids++, n, i, m.getState(), cost, 0);
+                    if (child.depth > memory || child.depth == memory && !goal.test(child.state)) {
+                        // the path does not fit into memory or cannot be extended without exceeding it
+                        child.totalCost = Double.POSITIVE_INFINITY;
+                    } else {
+                        // the total cost of a child is never lower than the one of its parent
+                        child.totalCost = Math.max(n.totalCost, cost + h.applyAsDouble(child.state));
+                        listener.heuristicEvaluated(child.state);
+                    }
+                    n.children[i] = child;
+                    n.inMemory++;
+                    used++;
+                    queue(open, child);
+                    listener.generated(child.state);
+                }
+            } else {
+                // regenerate only the forgotten successor with the lowest backed up cost
+                int best = n.bestForgotten();
+                Transition m = n.successors.get(best);
+                BoundedNode child = new BoundedNode(ids++, n, best, m.getState(), m.getCost() + n.cost, n.forgotten[best]);
+                n.children[best] = child;
+                n.inMemory++;
+                used++;
+                queue(open, child);
+                listener.generated(child.state);
+                regenerated = child;
+            }
+            backup(open, n);
+
+            while (used > memory) {
+                BoundedNode worst = regenerated;
+                for (BoundedNode candidate : open.descendingSet()) {
+                    if (candidate.inMemory == 0 && candidate.parent != null && candidate != regenerated) {
+                        worst = candidate;
+                        break;
+                    }
+                }
+                open.remove(worst);
+                used--;
+                BoundedNode parent = worst.parent;
+                parent.children[worst.index] = null;
+                parent.forgotten[worst.index] = worst.totalCost;
+                parent.inMemory--;
+                backup(open, parent);
+            }
+            listener.openSize(open.size());
+        }
+        return new SearchResult(Optional.empty(), statesVisited);
+    }
+
+    /**
+     * Recomputes the total cost of the expanded node as the lowest total cost of its successors,
+     * both the ones in memory and the forgotten ones, and propagates the change to the ancestors.
+     * Every node on the way is put back in open with its new priority.
+     */
+    private static void backup(NavigableSet<BoundedNode> open, BoundedNode n) {
+        for (BoundedNode node = n; node != null; node = node.parent) {
+            open.remove(node);
+            double old = node.totalCost;
+            double lowest = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < node.children.length; i++)
+                lowest = Math.min(lowest, node.children[i] != null ? node.children[i].totalCost : node.forgotten[i]);
+            node.totalCost = lowest;
+            queue(open, node);
+            if (lowest == old)
+                break;
+        }
+    }
+
+    /**
+     * Puts the node in open if it has something to expand: a leaf is expanded by its total cost,
+     * a node with forgotten successors is expanded again when its best forgotten successor is the
+     * cheapest option.
+     */
+    private static void queue(NavigableSet<BoundedNode> open, BoundedNode node) {
+        if (node.successors == null || node.inMemory == 0) {
+            node.priority = node.totalCost;
+        } else {
+            int best = node.bestForgotten();
+            if (best < 0 || node.forgotten[best] == Double.POSITIVE_INFINITY)
+                return;
+            node.priority = node.forgotten[best];
+        }
+        open.add(node);
+    }
+
+    /**
+     * Frame of the depth first search in IDA*
+     */
+    private static class Frame {
+        /** Node of the frame */
+        private final Node node;
+        /** Successors of the node, null until the node is expanded */
+        private List<Transition> successors;
+        /** Index of the next successor */
+        private int index;
+
+        /**
+         * Constructor.
+         * @param node node of the frame
+         */
+        private Frame(Node node) {
+            this.node = node;
+        }
+    }
+
+    /**
+     * Node of the SMA* search tree
+     */
+    private static class BoundedNode {
+        /** Unique id which orders otherwise equal nodes */
+        private final long id;
+        /** Parent node */
+        private final BoundedNode parent;
+        /** Index of the node among the successors of its parent */
+        private final int index;
+        /** State of the node */
+        private final String state;
+        /** Cost from the initial state */
+        private final double cost;
+        /** Depth, the initial state has depth 1 */
+        private final int depth;
+        /** Estimated total cost, backed up from the successors once the node is expanded */
+        private double totalCost;
+        /** Key of the node in open */
+        private double priority;
+        /** Successors of the node, null until the node is expanded */
+        private List<Transition> successors;
+        /** Successors in memory, null where the successor was forgotten */
+        private BoundedNode[] children;
+        /** Total costs of the forgotten successors */
+        private double[] forgotten;
+        /** Number of successors in memory */
+        private int inMemory;
+
+        /**
+         * Constructor.
+         */
+        private BoundedNode(long id, BoundedNode parent, int index, String state, double cost, double totalCost) {
+            this.id = id;
+            this.parent = parent;
+            this.index = index;
+            this.state = state;
+            this.cost = cost;
+            this.totalCost = totalCost;
+            this.depth = parent == null ? 1 : parent.depth + 1;
+        }
+
+        /**
+         * Returns the index of the forgotten successor with the lowest total cost, or -1 if none was forgotten.
+         */
+        private int bestForgotten() {
+            int best = -1;
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == null && (best < 0 || forgotten[i] < forgotten[best]))
+                    best = i;
+            }
+            return best;
+        }
+
+        /**
+         * Checks whether the state is on the path from the initial state to this node.
+         */
+        private boolean isOnPath(String s) {
+            for (BoundedNode node = this; node != null; node = node.parent) {
+                if (node.state.equals(s))
+                    return true;
+            }
+            return false;
+        }
+
+        /**
+         * Converts the path to this node into search tree nodes.
+         */
+        private Node toNode() {
+            Deque<BoundedNode> path = new ArrayDeque<>();
+            for (BoundedNode node = this; node != null; node = node.parent)
+                path.push(node);
+
+            Node node = null;
+            for (BoundedNode n : path)
+                node = new Node(node, n.state, n.cost);
+            return node;
+        }
+
+        /**
+         * Orders by priority, then deeper nodes first, then by state name.
+         */
+        private static final Comparator<BoundedNode> ORDER = Comparator
+                .comparingDouble((BoundedNode n) -> n.priority)
+                .thenComparingInt(n -> -n.depth)
+                .thenComparing(n -> n.state)
+                .thenComparingLong(n -> n.id);
+    }
+}
@@ -0,0 +1,358 @@
+package ui.search;
+
+import ui.descriptor.CompiledStateSpace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Holds implementations of search algorithms which run on several threads.
+ */
+public class ParallelAlgorithms {
+    /** Number of busy waiting iterations of an idle worker before it starts yielding */
+    private static final int SPINS = 64;
+    /** Smallest number of frontier states handed to a single task of parallel breadth first search */
+    private static final int CHUNK = 1024;
+
+    /**
+     * Level synchronous parallel breadth first search. The states of a level are split into
+     * chunks which are expanded concurrently and visited states are marked in an atomic bitmap.
+     * <p>
+     * Every level is handled in two parallel phases. First every newly reached state is claimed
+     * by the state with the lowest position in the frontier which reaches it. Then every chunk
+     * emits the states it claimed in the order of its rows, which are sorted by name, and the
+     * emitted states are placed after the ones of the previous chunks. The next frontier is
+     * therefore in the same order as the queue of sequential breadth first search, so the path
+     * and the number of visited states are the same as the ones of
+     * {@link CompiledAlgorithms#bfs(CompiledStateSpace)}.
+     * @param css compiled state space
+     * @param threads number of threads
+     * @return result of search
+     */
+    public static SearchResult bfs(CompiledStateSpace css, int threads) {
+        int[] offsets = css.getOffsets();
+        int[] targets = css.getTargets();
+        double[] costs = css.getCosts();
+
+        int n = css.getStateCount();
+        int[] parent = new int[n];
+        double[] g = new double[n];
+        AtomicLongArray visited = new AtomicLongArray((n + 63) >>> 6);
+        // frontier position plus one of the state which claimed each state, 0 if not claimed
+        AtomicIntegerArray claim = new AtomicIntegerArray(n);
+
+        int s0 = css.getInitialState();
+        parent[s0] = -1;
+        visited.set(s0 >>> 6, 1L << s0);
+        int[] frontier = {s0};
+        int statesVisited = 0;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            while (frontier.length > 0) {
+                for (int i = 0; i < frontier.length; i++) {
+                    if (css.isFinal(frontier[i]))
+                        return new SearchResult(Optional.of(CompiledAlgorithms.toNode(css, parent, g, frontier[i])), statesVisited + i + 1);
+                }
+                statesVisited += frontier.length;
+
+                int[] level = frontier;
+                int chunks = Math.max(1, Math.min(threads, level.length / CHUNK));
+                List<Callable<Void>> claims = new ArrayList<>(chunks);
+                List<Callable<int[]>> emits = new ArrayList<>(chunks);
+                for (int c = 0; c < chunks; c++) {
+                    int from = (int) ((long) level.length * c / chunks);
+                    int to = (int) ((long) level.length * (c + 1) / chunks);
+                    claims.add(() -> {
+                        for (int i = from; i < to; i++) {
+                            int s = level[i];
+                            for (int e = offsets[s], end = offsets[s + 1]; e < end; e++) {
+                                int m = targets[e];
+                                if ((visited.get(m >>> 6) & (1L << m)) != 0)
+                                    continue;
+                                int current = claim.get(m);
+                                while ((current == 0 || i + 1 < current) && !claim.compareAndSet(m, current, i + 1))
+                                    current = claim.get(m);
+                            }
+                        }
+                        return null;
+                    });
+                    emits.add(() -> {
+                        int[] emitted = new int[16];
+                        int size = 0;
+                        for (int i = from; i < to; i++) {
+                            int s = level[i];
+                            for (int e = offsets[s], end = offsets[s + 1]; e < end; e++) {
+                                int m = targets[e];
+                                // rows are sorted by destination, so only the first transition to a state counts
+                                if ((visited.get(m >>> 6) & (1L << m)) != 0 || claim.get(m) != i + 1
+                                        || (e > offsets[s] && targets[e - 1] == m))
+                                    continue;
+                                parent[m] = s;
+                                g[m] = costs[e] + g[s];
+                                if (size == emitted.length)
+                                    emitted = Arrays.copyOf(emitted, size * 2);
+                                emitted[size++] = m;
+                            }
+                        }
+                        return Arrays.copyOf(emitted, size);
+                    });
+                }
+                invokeAll(pool, claims);
+                List<int[]> parts = invokeAll(pool, emits);
+
+                // every claimed state was emitted, so the claims of the unvisited states stay 0
+                int size = 0;
+                for (int[] part : parts)
+                    size += part.length;
+                frontier = new int[size];
+                size = 0;
+                for (int[] part : parts) {
+                    System.arraycopy(part, 0, frontier, size, part.length);
+                    size += part.length;
+                }
+                for (int m : frontier)
+                    visited.getAndAccumulate(m >>> 6, 1L << m, (word, bit) -> word | bit);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return new SearchResult(Optional.empty(), statesVisited);
+    }
+
+    /**
+     * Hash distributed A* search. Every worker owns the states whose id modulo the number
+     * of workers equals its index, and keeps the open set and the best known costs of those
+     * states, which act as its closed set. A state reached more cheaply is reopened.
+     * Successors owned by another worker are sent to it through a lock-free queue.
+     * <p>
+     * A goal found by a worker becomes the incumbent solution and the search goes on until
+     * no worker has a node cheaper than the incumbent. With an optimistic heuristic the cost
+     * is the same as the one of sequential A*, though the path and the number of visited
+     * states may differ between runs.
+     * @param css compiled state space
+     * @param h heuristic values indexed by state id
+     * @param threads number of workers
+     * @return result of search
+     */
+    public static SearchResult hdastar(CompiledStateSpace css, double[] h, int threads) {
+        HdaSearch search = new HdaSearch(css, h, threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int w = 0; w < threads; w++) {
+                int worker = w;
+                futures.add(pool.submit(() -> search.run(worker)));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Search was interrupted!");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int statesVisited = Arrays.stream(search.expanded).sum();
+        if (search.goal < 0)
+            return new SearchResult(Optional.empty(), statesVisited);
+        return new SearchResult(Optional.of(CompiledAlgorithms.toNode(css, search.parent, search.g, search.goal)), statesVisited);
+    }
+
+    /**
+     * Runs the tasks on the pool and waits for them.
+     * @return results of the tasks in their order
+     */
+    private static <T> List<T> invokeAll(ExecutorService pool, List<Callable<T>> tasks) {
+        try {
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : pool.invokeAll(tasks))
+                results.add(future.get());
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Search was interrupted!");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Node sent to the worker which owns its state.
+     */
+    private static class Message {
+        /** State id */
+        final int state;
+        /** Id of the parent state */
+        final int parent;
+        /** Cost of reaching the state */
+        final double g;
+
+        Message(int state, int parent, double g) {
+            this.state = state;
+            this.parent = parent;
+            this.g = g;
+        }
+    }
+
+    /**
+     * Shared state of a hash distributed A* search. The arrays indexed by state id are
+     * written only by the owner of the state, so they need no synchronization.
+     */
+    private static class HdaSearch {
+        final CompiledStateSpace css;
+        final double[] h;
+        final int workers;
+        /** Cost of reaching each state */
+        final double[] g;
+        /** Parent of each state, -1 for the initial state */
+        final int[] parent;
+        /** Incoming nodes of each worker */
+        final List<ConcurrentLinkedQueue<Message>> inbox;
+        /** Number of visited states of each worker */
+        final int[] expanded;
+        /**
+         * Number of active workers plus the number of sent messages which were not handled yet.
+         * When it drops to zero it stays zero, because only active workers send messages and only
+         * messages wake up idle workers, so the search is over.
+         */
+        final AtomicLong work;
+        /** Flag which stops all workers */
+        volatile boolean done;
+        /** Cost of the best solution found so far */
+        volatile double incumbent = Double.POSITIVE_INFINITY;
+        /** Goal state of the best solution, -1 if there is none */
+        int goal = -1;
+
+        HdaSearch(CompiledStateSpace css, double[] h, int workers) {
+            this.css = css;
+            this.h = h;
+            this.workers = workers;
+            int n = css.getStateCount();
+            g = new double[n];
+            Arrays.fill(g, Double.POSITIVE_INFINITY);
+            parent = new int[n];
+            inbox = new ArrayList<>(workers);
+            for (int w = 0; w < workers; w++)
+                inbox.add(new ConcurrentLinkedQueue<>());
+            expanded = new int[workers];
+            work = new AtomicLong(workers);
+        }
+
+        /**
+         * Runs the loop of a single worker.
+         */
+        void run(int w) {
+            try {
+                int[] offsets = css.getOffsets();
+                int[] targets = css.getTargets();
+                double[] costs = css.getCosts();
+                // states of this worker are stored in the queue by their index within the partition
+                IntPriorityQueue open = new IntPriorityQueue(css.getStateCount() / workers + 1);
+                ConcurrentLinkedQueue<Message> messages = inbox.get(w);
+                int visited = 0;
+
+                int s0 = css.getInitialState();
+                if (s0 % workers == w)
+                    relax(open, s0, -1, 0);
+
+                while (!done) {
+                    Message m;
+                    while ((m = messages.poll()) != null) {
+                        relax(open, m.state, m.parent, m.g);
+                        work.decrementAndGet();
+                    }
+
+                    if (open.isEmpty() || open.getPriority(open.peek()) >= incumbent) {
+                        if (!idle(w))
+                            break;
+                        continue;
+                    }
+
+                    int s = open.poll() * workers + w;
+                    visited++;
+                    if (css.isFinal(s)) {
+                        improve(s);
+                        continue;
+                    }
+
+                    for (int e = offsets[s], end = offsets[s + 1]; e < end; e++) {
+                        int t = targets[e];
+                        double cost = g[s] + costs[e];
+                        if (cost + h[t] >= incumbent)
+                            continue;
+                        int owner = t % workers;
+                        if (owner == w) {
+                            relax(open, t, s, cost);
+                        } else {
+                            work.incrementAndGet();
+                            inbox.get(owner).add(new Message(t, s, cost));
+                        }
+                    }
+                }
+                expanded[w] = visited;
+            } catch (RuntimeException | Error e) {
+                done = true;
+                throw e;
+            }
+        }
+
+        /**
+         * Waits until the worker gets a message or the search is over.
+         * @return true if the worker got a message, false if the search is over
+         */
+        boolean idle(int w) {
+            work.decrementAndGet();
+            for (int spins = 0; !done; spins++) {
+                if (!inbox.get(w).isEmpty()) {
+                    work.incrementAndGet();
+                    return true;
+                }
+                if (work.get() == 0) {
+                    done = true;
+                    break;
+                }
+                // spin for a short while, then let the busy workers run
+                if (spins < SPINS)
+                    Thread.onSpinWait();
+                else
+                    Thread.yield();
+            }
+            return false;
+        }
+
+        /**
+         * Updates the state owned by this worker if the new path is cheaper, reopening it if it was expanded.
+         */
+        void relax(IntPriorityQueue open, int t, int p, double cost) {
+            if (cost >= g[t])
+                return;
+            g[t] = cost;
+            parent[t] = p;
+            int local = t / workers;
+            if (open.contains(local)) {
+                open.decreaseKey(local, cost + h[t]);
+            } else {
+                open.offer(local, cost + h[t]);
+            }
+        }
+
+        /**
+         * Makes the given goal the incumbent if it is cheaper.
+         */
+        synchronized void improve(int s) {
+            if (g[s] < incumbent) {
+                incumbent = g[s];
+                goal = s;
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package ui.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Races several search algorithms on the same state space, each on its own thread. The first
+ * result which is good enough wins and the other algorithms are cancelled cooperatively: their
+ * listener throws as soon as they expand the next state, so the state space must be safe to
+ * read from several threads.
+ */
+public class PortfolioSearch {
+
+    /**
+     * Runs the members concurrently and returns when all of them finished or were cancelled.
+     * When optimality is required, the winner is the first member which is optimal, or the
+     * first member at all if no optimal member finishes.
+     * @param members algorithms of the portfolio
+     * @param first true if the first result wins even if its member is not optimal
+     * @return report with the winner and the outcome of every member
+     * @throws IllegalArgumentException if the portfolio is empty
+     */
+    public static Report race(List<Member> members, boolean first) {
+        if (members.isEmpty()) throw new IllegalArgumentException("Portfolio must contain at least one algorithm!");
+
+        CancellingListener listener = new CancellingListener();
+        ExecutorService pool = Executors.newFixedThreadPool(members.size());
+        CompletionService<Outcome> completion = new ExecutorCompletionService<>(pool);
+        long start = System.nanoTime();
+        try {
+            for (Member member : members) {
+                completion.submit(() -> {
+                    try {
+                        SearchResult result = member.search.apply(listener);
+                        return new Outcome(member, result, System.nanoTime() - start);
+                    } catch (CancellationException e) {
+                        return new Outcome(member, null, System.nanoTime() - start);
+                    }
+                });
+            }
+
+            List<Outcome> outcomes = new ArrayList<>();
+            Outcome winner = null;
+            Outcome fallback = null;
+            for (int i = 0; i < members.size(); i++) {
+                Outcome outcome = completion.take().get();
+                outcomes.add(outcome);
+                if (outcome.result == null || winner != null)
+                    continue;
+                if (fallback == null)
+                    fallback = outcome;
+                if (first || outcome.member.optimal) {
+                    winner = outcome;
+                    listener.cancelled = true;
+                }
+            }
+            return new Report(winner != null ? winner : fallback, outcomes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Portfolio search was interrupted!", e);
+        } catch (ExecutionException e) {
+            // a failure of a member is not recoverable, so it is rethrown as it is
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            listener.cancelled = true;
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Listener shared by all members, which stops a member at its next expansion once the race is decided.
+     */
+    private static final class CancellingListener implements SearchListener {
+        /** Flag which is set when the winner is known */
+        private volatile boolean cancelled;
+
+        @Override
+        public void expanded(String state) {
+            if (cancelled)
+                throw new CancellationException();
+        }
+    }
+
+    /**
+     * Search algorithm taking part in a portfolio.
+     */
+    public static class Member {
+        /** Name of the algorithm */
+        private final String name;
+        /** Flag which signalizes whether the algorithm finds the cheapest path */
+        private final boolean optimal;
+        /** Search which reports its events to the given listener */
+        private final Function<SearchListener, SearchResult> search;
+
+        /**
+         * Constructor.
+         * @param name name of the algorithm
+         * @param optimal true if the algorithm finds the cheapest path
+         * @param search search which reports its events to the given listener
+         */
+        public Member(String name, boolean optimal, Function<SearchListener, SearchResult> search) {
+            this.name = name;
+            this.optimal = optimal;
+            this.search = search;
+        }
+
+        /**
+         * Returns the name of the algorithm.
+         * @return name of the algorithm
+         */
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Result of a single member, null if it was cancelled.
+     */
+    private static final class Outcome {
+        /** Member which ran */
+        private final Member member;
+        /** Result of the member, null if it was cancelled */
+        private final SearchResult result;
+        /** Time from the start of the race until the member stopped in nanoseconds */
+        private final long nanos;
+
+        private Outcome(Member member, SearchResult result, long nanos) {
+            this.member = member;
+            this.result = result;
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * Winner of a race together with the outcome of every member in the order in which they stopped.
+     */
+    public static class Report {
+        /** Outcome of the winner */
+        private final Outcome winner;
+        /** Outcomes of all members */
+        private final List<Outcome> outcomes;
+
+        private Report(Outcome winner, List<Outcome> outcomes) {
+            this.winner = winner;
+            this.outcomes = outcomes;
+        }
+
+        /**
+         * Returns the name of the winning algorithm.
+         * @return name of the winner
+         */
+        public String getWinner() {
+            return winner.member.name;
+        }
+
+        /**
+         * Returns the result of the winning algorithm.
+         * @return result of the winner
+         */
+        public SearchResult getResult() {
+            return winner.result;
+        }
+
+        /**
+         * Returns a line for every member with its state and the time it ran in milliseconds, followed by the winner.
+         * @return report of the race
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (Outcome outcome : outcomes) {
+                sb.append("[ALGORITHM]: ").append(outcome.member.name)
+                        .append(outcome.result != null ? " finished in " : " cancelled after ")
+                        .append(String.format(Locale.ROOT, "%.3f", outcome.nanos / 1e6)).append(" ms\n");
+            }
+            sb.append("[WINNER]: ").append(getWinner());
+            return sb.toString();
+        }
+    }
+}
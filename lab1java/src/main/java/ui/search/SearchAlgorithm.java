@@ -9,5 +9,27 @@ public enum SearchAlgorithm {
     /** Uniform cost search */
     UCS,
     /** A star search */
-    ASTAR
+    ASTAR,
+    /** Bidirectional breadth first search */
+    BIBFS,
+    /** Bidirectional uniform cost search */
+    BIUCS,
+    /** Iterative deepening A star search */
+    IDASTAR,
+    /** Simplified memory-bounded A star search */
+    SMASTAR,
+    /** Hash distributed parallel A star search */
+    HDASTAR,
+    /** Weighted A star search */
+    WASTAR,
+    /** Anytime repairing A star search */
+    ARASTAR,
+    /** Level synchronous parallel breadth first search */
+    PBFS,
+    /** Contraction hierarchy search */
+    CH,
+    /** Lifelong planning A star search */
+    LPASTAR,
+    /** Race of several search algorithms */
+    PORTFOLIO
 }
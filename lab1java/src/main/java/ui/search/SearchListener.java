@@ -0,0 +1,62 @@
+package ui.search;
+
+/**
+ * Listener which is notified about the events of a search algorithm. Every method has an
+ * empty default implementation, and {@link #NONE} is used when instrumentation is disabled,
+ * so a disabled listener adds no allocation to the search.
+ */
+public interface SearchListener {
+    /** Listener which ignores all events */
+    SearchListener NONE = new SearchListener() {
+    };
+
+    /**
+     * Called when a state is taken from open to be expanded.
+     * @param state expanded state
+     */
+    default void expanded(String state) {
+    }
+
+    /**
+     * Called when a new node is created for a successor.
+     * @param state state of the generated node
+     */
+    default void generated(String state) {
+    }
+
+    /**
+     * Called when a successor is discarded because it was already visited
+     * or because open already contains a node which is not more expensive.
+     * @param state discarded state
+     */
+    default void duplicate(String state) {
+    }
+
+    /**
+     * Called when the node of a state in open is replaced by a cheaper one.
+     * @param state state whose node was replaced
+     */
+    default void decreasedKey(String state) {
+    }
+
+    /**
+     * Called when the heuristic function is evaluated.
+     * @param state state for which the heuristic was evaluated
+     */
+    default void heuristicEvaluated(String state) {
+    }
+
+    /**
+     * Called after the successors of a state have been added to open.
+     * @param size current size of open
+     */
+    default void openSize(int size) {
+    }
+
+    /**
+     * Called when a goal state is reached.
+     * @param state goal state
+     */
+    default void goalReached(String state) {
+    }
+}
@@ -0,0 +1,165 @@
+package ui.search;
+
+import java.util.Locale;
+
+/**
+ * Search listener which counts the events of a search and holds the time spent in each phase.
+ */
+public class SearchMetrics implements SearchListener {
+    /** Number of expanded states */
+    private long expanded;
+    /** Number of generated nodes */
+    private long generated;
+    /** Number of discarded duplicate successors */
+    private long duplicates;
+    /** Number of replaced nodes in open */
+    private long decreasedKeys;
+    /** Number of heuristic evaluations */
+    private long heuristicEvaluations;
+    /** Largest size of open */
+    private int openPeak;
+    /** Time spent parsing the descriptors in nanoseconds */
+    private long parseNanos;
+    /** Time spent searching in nanoseconds */
+    private long searchNanos;
+    /** Time spent reporting the result in nanoseconds */
+    private long reportNanos;
+
+    @Override
+    public void expanded(String state) {
+        expanded++;
+    }
+
+    @Override
+    public void generated(String state) {
+        generated++;
+    }
+
+    @Override
+    public void duplicate(String state) {
+        duplicates++;
+    }
+
+    @Override
+    public void decreasedKey(String state) {
+        decreasedKeys++;
+    }
+
+    @Override
+    public void heuristicEvaluated(String state) {
+        heuristicEvaluations++;
+    }
+
+    @Override
+    public void openSize(int size) {
+        if (size > openPeak)
+            openPeak = size;
+    }
+
+    /**
+     * Returns the number of expanded states.
+     * @return number of expanded states
+     */
+    public long getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Returns the number of generated nodes.
+     * @return number of generated nodes
+     */
+    public long getGenerated() {
+        return generated;
+    }
+
+    /**
+     * Returns the number of discarded duplicate successors.
+     * @return number of duplicates
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Returns the number of replaced nodes in open.
+     * @return number of decreased keys
+     */
+    public long getDecreasedKeys() {
+        return decreasedKeys;
+    }
+
+    /**
+     * Returns the number of heuristic evaluations.
+     * @return number of heuristic evaluations
+     */
+    public long getHeuristicEvaluations() {
+        return heuristicEvaluations;
+    }
+
+    /**
+     * Returns the largest size of open.
+     * @return largest size of open
+     */
+    public int getOpenPeak() {
+        return openPeak;
+    }
+
+    /**
+     * Sets the time spent parsing the descriptors.
+     * @param nanos time in nanoseconds
+     */
+    public void setParseNanos(long nanos) {
+        this.parseNanos = nanos;
+    }
+
+    /**
+     * Sets the time spent searching.
+     * @param nanos time in nanoseconds
+     */
+    public void setSearchNanos(long nanos) {
+        this.searchNanos = nanos;
+    }
+
+    /**
+     * Sets the time spent reporting the result.
+     * @param nanos time in nanoseconds
+     */
+    public void setReportNanos(long nanos) {
+        this.reportNanos = nanos;
+    }
+
+    /**
+     * Returns the metrics as a single line JSON object. Times are in milliseconds.
+     * @return metrics in JSON format
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"expanded\":").append(expanded);
+        sb.append(",\"generated\":").append(generated);
+        sb.append(",\"duplicates\":").append(duplicates);
+        sb.append(",\"decreasedKeys\":").append(decreasedKeys);
+        sb.append(",\"heuristicEvaluations\":").append(heuristicEvaluations);
+        sb.append(",\"openPeak\":").append(openPeak);
+        sb.append(",\"parseMs\":").append(millis(parseNanos));
+        sb.append(",\"searchMs\":").append(millis(searchNanos));
+        sb.append(",\"reportMs\":").append(millis(reportNanos));
+        sb.append("}");
+        return sb.toString();
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds with three decimals.
+     */
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    /**
+     * Returns the metrics line which is printed after the search result.
+     * @return metrics line
+     */
+    @Override
+    public String toString() {
+        return "[METRICS]: " + toJson();
+    }
+}
@@ -0,0 +1,155 @@
+package ui.server;
+
+import ui.batch.BatchSearch;
+import ui.batch.Query;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Long-lived search server which answers queries over a TCP socket bound to the loopback address.
+ * <p>
+ * A client sends one query per line written as {@code <start> <algorithm> [<heuristic>]} and gets
+ * the same answer as in batch mode, followed by an empty line. Sending {@code quit} closes the
+ * connection. Queries can only use the heuristic descriptor loaded by the server, unless the
+ * clients are trusted to name any descriptor. Every connection is handled by a thread of a
+ * bounded pool. A new connection is only accepted when a thread is free, so the waiting clients
+ * queue up in the backlog of the socket.
+ */
+public class SearchServer implements Closeable {
+    /** Maximum number of connections waiting in the backlog of the socket */
+    private static final int BACKLOG = 128;
+    /** Time in milliseconds after which an idle connection is closed */
+    private static final int IDLE_TIMEOUT = 60_000;
+    /** Number of results which the search of a server should keep cached */
+    public static final int CACHE_CAPACITY = 1024;
+
+    /** Search which answers the queries */
+    private final BatchSearch search;
+    /** Heuristic used when a query does not name one, may be null */
+    private final String defaultHeuristic;
+    /** Flag which signalizes whether queries may name heuristic descriptors other than the default one */
+    private final boolean anyHeuristic;
+    /** Socket on which the connections are accepted */
+    private final ServerSocket socket;
+    /** Threads which handle the connections */
+    private final ExecutorService pool;
+    /** Free threads of the pool */
+    private final Semaphore permits;
+
+    /**
+     * Constructor which binds the socket.
+     * @param search search which answers the queries
+     * @param defaultHeuristic heuristic used when a query does not name one, may be null
+     * @param anyHeuristic true if queries may name heuristic descriptors other than the default one
+     * @param port port on which to listen, 0 for any free port
+     * @param threads number of connections handled at the same time
+     * @throws IOException if the socket can not be bound
+     */
+    public SearchServer(BatchSearch search, String defaultHeuristic, boolean anyHeuristic, int port, int threads) throws IOException {
+        this.search = search;
+        this.defaultHeuristic = defaultHeuristic;
+        this.anyHeuristic = anyHeuristic;
+        this.socket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        this.pool = Executors.newFixedThreadPool(threads);
+        this.permits = new Semaphore(threads);
+    }
+
+    /**
+     * Returns the port on which the server listens.
+     * @return port
+     */
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the server is closed.
+     * @throws IOException if there is a problem with the socket
+     */
+    public void serve() throws IOException {
+        while (!socket.isClosed()) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            Socket client;
+            try {
+                client = socket.accept();
+            } catch (IOException e) {
+                permits.release();
+                if (socket.isClosed())
+                    return;
+                throw e;
+            }
+
+            pool.execute(() -> {
+                try {
+                    handle(client);
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * Answers the queries of a single connection.
+     */
+    private void handle(Socket client) {
+        try (client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8))) {
+            client.setSoTimeout(IDLE_TIMEOUT);
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                if (line.equalsIgnoreCase("quit"))
+                    break;
+
+                String answer;
+                try {
+                    Query query = Query.parse(line, defaultHeuristic);
+                    // a client must not make the server read arbitrary files unless it is trusted to
+                    if (!anyHeuristic && query.getHeuristic() != null && !query.getHeuristic().equals(defaultHeuristic))
+                        throw new IllegalArgumentException("Heuristic descriptor was not loaded by the server: " + query.getHeuristic());
+                    answer = search.answer(query);
+                } catch (IllegalArgumentException e) {
+                    answer = "[ERROR]: " + e.getMessage();
+                }
+                out.write(answer);
+                if (!answer.endsWith("\n"))
+                    out.write('\n');
+                out.write('\n');
+                out.flush();
+            }
+        } catch (SocketTimeoutException e) {
+            // idle connection, it was closed
+        } catch (IOException e) {
+            // the client went away, there is nobody to report to
+        }
+    }
+
+    /**
+     * Stops accepting connections and stops the threads.
+     * @throws IOException if there is a problem with closing the socket
+     */
+    @Override
+    public void close() throws IOException {
+        socket.close();
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,172 @@
+package ui.space;
+
+import ui.Utils;
+import ui.data.Transition;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pathfinding on a four-connected grid read from a map. Every line of the map is a row of cells:
+ * <ul>
+ *     <li>{@code S} is the start cell</li>
+ *     <li>{@code G} is a goal cell</li>
+ *     <li>{@code #} is a wall</li>
+ *     <li>{@code .} is a free cell which costs 1 to enter</li>
+ *     <li>{@code 1} to {@code 9} is a free cell which costs the given amount to enter</li>
+ * </ul>
+ * A state is written as {@code r<row>c<column>}. The heuristic is the Manhattan distance to
+ * the nearest goal cell, which is optimistic because entering a cell costs at least 1.
+ */
+public class GridStateSpace implements StateSpace {
+    /** Rows of the map */
+    private final String[] rows;
+    /** Initial state */
+    private final String initialState;
+    /** Rows of the goal cells */
+    private final int[] goalRows;
+    /** Columns of the goal cells */
+    private final int[] goalColumns;
+
+    /**
+     * Constructor which reads the map from a file.
+     * @param filePath path to the map
+     * @throws IOException if there is a problem with reading the file
+     * @throws IllegalArgumentException if the map is not valid
+     */
+    public GridStateSpace(String filePath) throws IOException {
+        this(Files.readAllLines(Utils.checkProvidedPath(filePath)));
+    }
+
+    /**
+     * Constructor.
+     * @param rows rows of the map
+     * @throws IllegalArgumentException if the map is not valid
+     */
+    public GridStateSpace(List<String> rows) {
+        this.rows = rows.toArray(new String[0]);
+        String start = null;
+        List<int[]> goals = new ArrayList<>();
+        for (int r = 0; r < this.rows.length; r++) {
+            for (int c = 0; c < this.rows[r].length(); c++) {
+                char cell = this.rows[r].charAt(c);
+                if (cell == 'S') {
+                    if (start != null) throw new IllegalArgumentException("Map must contain exactly one start cell!");
+                    start = name(r, c);
+                } else if (cell == 'G') {
+                    goals.add(new int[] {r, c});
+                } else if (cell != '#' && cell != '.' && (cell < '1' || cell > '9')) {
+                    throw new IllegalArgumentException("Unsupported cell in map: " + cell);
+                }
+            }
+        }
+        if (start == null) throw new IllegalArgumentException("Map must contain exactly one start cell!");
+        if (goals.isEmpty()) throw new IllegalArgumentException("Map must contain at least one goal cell!");
+
+        initialState = start;
+        goalRows = new int[goals.size()];
+        goalColumns = new int[goals.size()];
+        for (int i = 0; i < goals.size(); i++) {
+            goalRows[i] = goals.get(i)[0];
+            goalColumns[i] = goals.get(i)[1];
+        }
+    }
+
+    /**
+     * Returns the initial state.
+     * @return initial state
+     */
+    @Override
+    public String getInitialState() {
+        return initialState;
+    }
+
+    /**
+     * Checks whether the given state is a goal state.
+     * @param state state to check
+     * @return true if the state is a goal state, false otherwise
+     */
+    @Override
+    public boolean isGoal(String state) {
+        int[] cell = parse(state);
+        return rows[cell[0]].charAt(cell[1]) == 'G';
+    }
+
+    /**
+     * Generates the successors of the given state sorted by state name.
+     * @param state state whose successors are generated
+     * @return transitions to the successors sorted by state name
+     */
+    @Override
+    public List<Transition> getSuccessors(String state) {
+        int[] cell = parse(state);
+        int r = cell[0], c = cell[1];
+
+        List<Transition> successors = new ArrayList<>(4);
+        add(successors, r - 1, c);
+        add(successors, r + 1, c);
+        add(successors, r, c - 1);
+        add(successors, r, c + 1);
+        successors.sort(Transition.BY_NAME);
+        return successors;
+    }
+
+    /**
+     * Returns true, the state space provides its own heuristic.
+     * @return true
+     */
+    @Override
+    public boolean hasHeuristic() {
+        return true;
+    }
+
+    /**
+     * Returns the Manhattan distance to the nearest goal cell.
+     * @param state state for which to return the heuristic
+     * @return heuristic value
+     */
+    @Override
+    public double getHeuristic(String state) {
+        int[] cell = parse(state);
+        int distance = Integer.MAX_VALUE;
+        for (int i = 0; i < goalRows.length; i++)
+            distance = Math.min(distance, Math.abs(cell[0] - goalRows[i]) + Math.abs(cell[1] - goalColumns[i]));
+        return distance;
+    }
+
+    /**
+     * Adds the transition to the given cell if it can be entered.
+     */
+    private void add(List<Transition> successors, int r, int c) {
+        if (r < 0 || r >= rows.length || c < 0 || c >= rows[r].length())
+            return;
+        char cell = rows[r].charAt(c);
+        if (cell == '#')
+            return;
+        successors.add(new Transition(name(r, c), cell >= '1' && cell <= '9' ? cell - '0' : 1));
+    }
+
+    /**
+     * Returns the name of the state of the given cell.
+     */
+    private static String name(int r, int c) {
+        return "r" + r + "c" + c;
+    }
+
+    /**
+     * Parses the row and the column of the given state.
+     * @throws IllegalArgumentException if the state is not a cell of the grid
+     */
+    private int[] parse(String state) {
+        int split = state.indexOf('c');
+        if (!state.startsWith("r") || split < 0)
+            throw new IllegalArgumentException("State is not a cell of the grid: " + state);
+        try {
+            return new int[] {Integer.parseInt(state.substring(1, split)), Integer.parseInt(state.substring(split + 1))};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("State is not a cell of the grid: " + state);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package ui.space;
+
+import ui.data.Transition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sliding tile puzzle on a square board. A state is written as the tiles in row-major
+ * order separated by underscores, where 0 is the blank, for example {@code 1_2_3_4_5_6_7_0_8}.
+ * The goal state has the tiles in ascending order followed by the blank. Every move costs 1
+ * and the heuristic is the Manhattan distance of the tiles to their goal positions.
+ * Half of the boards cannot reach the goal, such a board has no successors, so the search
+ * reports that there is no solution instead of exhausting the reachable half of the space.
+ */
+public class NPuzzleStateSpace implements StateSpace {
+    /** Width of the board */
+    private final int width;
+    /** Initial state */
+    private final String initialState;
+    /** Goal state */
+    private final String goalState;
+    /** Whether the goal can be reached from the initial state */
+    private final boolean solvable;
+
+    /**
+     * Constructor.
+     * @param initialState initial state
+     * @throws IllegalArgumentException if the initial state is not a valid board
+     */
+    public NPuzzleStateSpace(String initialState) {
+        int[] tiles = parse(initialState);
+        int width = (int) Math.round(Math.sqrt(tiles.length));
+        if (tiles.length < 4 || width * width != tiles.length)
+            throw new IllegalArgumentException("Number of tiles must be a square of at least 2!");
+
+        boolean[] seen = new boolean[tiles.length];
+        for (int tile : tiles) {
+            if (tile < 0 || tile >= tiles.length || seen[tile])
+                throw new IllegalArgumentException("Tiles must be a permutation of numbers from 0 to " + (tiles.length - 1) + "!");
+            seen[tile] = true;
+        }
+
+        int[] goal = new int[tiles.length];
+        for (int i = 0; i < goal.length - 1; i++)
+            goal[i] = i + 1;
+
+        this.width = width;
+        this.initialState = format(tiles);
+        this.goalState = format(goal);
+        this.solvable = parity(tiles, width) == parity(goal, width);
+    }
+
+    /**
+     * Returns the initial state.
+     * @return initial state
+     */
+    @Override
+    public String getInitialState() {
+        return initialState;
+    }
+
+    /**
+     * Checks whether the given state is a goal state.
+     * @param state state to check
+     * @return true if the state is a goal state, false otherwise
+     */
+    @Override
+    public boolean isGoal(String state) {
+        return goalState.equals(state);
+    }
+
+    /**
+     * Generates the successors of the given state sorted by state name.
+     * @param state state whose successors are generated
+     * @return transitions to the successors sorted by state name
+     */
+    @Override
+    public List<Transition> getSuccessors(String state) {
+        // every move keeps the parity, so no state reachable from the initial one is a goal
+        if (!solvable)
+            return List.of();
+
+        int[] tiles = parse(state);
+        int blank = 0;
+        while (tiles[blank] != 0)
+            blank++;
+        int row = blank / width, column = blank % width;
+
+        List<Transition> successors = new ArrayList<>(4);
+        if (row > 0) successors.add(new Transition(move(tiles, blank, blank - width), 1));
+        if (row < width - 1) successors.add(new Transition(move(tiles, blank, blank + width), 1));
+        if (column > 0) successors.add(new Transition(move(tiles, blank, blank - 1), 1));
+        if (column < width - 1) successors.add(new Transition(move(tiles, blank, blank + 1), 1));
+        successors.sort(Transition.BY_NAME);
+        return successors;
+    }
+
+    /**
+     * Returns true, the state space provides its own heuristic.
+     * @return true
+     */
+    @Override
+    public boolean hasHeuristic() {
+        return true;
+    }
+
+    /**
+     * Returns the Manhattan distance of the tiles to their goal positions.
+     * @param state state for which to return the heuristic
+     * @return heuristic value
+     */
+    @Override
+    public double getHeuristic(String state) {
+        int[] tiles = parse(state);
+        int distance = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            if (tiles[i] == 0)
+                continue;
+            int target = tiles[i] - 1;
+            distance += Math.abs(i / width - target / width) + Math.abs(i % width - target % width);
+        }
+        return distance;
+    }
+
+    /**
+     * Returns the parity which no move changes: the number of inversions of the tiles,
+     * plus the row of the blank when the width is even.
+     */
+    private static int parity(int[] tiles, int width) {
+        int inversions = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            for (int j = i + 1; j < tiles.length; j++) {
+                if (tiles[i] != 0 && tiles[j] != 0 && tiles[i] > tiles[j])
+                    inversions++;
+            }
+        }
+
+        int blank = 0;
+        while (tiles[blank] != 0)
+            blank++;
+        return (width % 2 == 0 ? inversions + blank / width : inversions) % 2;
+    }
+
+    /**
+     * Creates the state in which the blank and the given tile are swapped.
+     */
+    private static String move(int[] tiles, int blank, int tile) {
+        tiles[blank] = tiles[tile];
+        tiles[tile] = 0;
+        String state = format(tiles);
+        tiles[tile] = tiles[blank];
+        tiles[blank] = 0;
+        return state;
+    }
+
+    /**
+     * Parses the tiles of the given state.
+     * @throws IllegalArgumentException if a tile is not a number
+     */
+    private static int[] parse(String state) {
+        String[] parts = state.split("_");
+        int[] tiles = new int[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++)
+                tiles[i] = Integer.parseInt(parts[i]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Tiles of the puzzle must be integers separated by underscores!");
+        }
+        return tiles;
+    }
+
+    /**
+     * Writes the tiles as a state.
+     */
+    private static String format(int[] tiles) {
+        StringBuilder sb = new StringBuilder(tiles.length * 3);
+        for (int i = 0; i < tiles.length; i++) {
+            if (i > 0) sb.append('_');
+            sb.append(tiles[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,94 @@
+package ui.space;
+
+import ui.data.Transition;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * State space defined by its initial state, goal test and successor generator.
+ * States are generated on demand, so the state space does not have to be stored anywhere.
+ */
+public interface StateSpace {
+
+    /**
+     * Returns the initial state.
+     * @return initial state
+     */
+    String getInitialState();
+
+    /**
+     * Checks whether the given state is a goal state.
+     * @param state state to check
+     * @return true if the state is a goal state, false otherwise
+     */
+    boolean isGoal(String state);
+
+    /**
+     * Generates the successors of the given state sorted by state name.
+     * @param state state whose successors are generated
+     * @return transitions to the successors sorted by state name
+     */
+    List<Transition> getSuccessors(String state);
+
+    /**
+     * Checks whether the state space provides its own heuristic.
+     * @return true if the heuristic is provided, false otherwise
+     */
+    default boolean hasHeuristic() {
+        return false;
+    }
+
+    /**
+     * Returns the heuristic value of the given state.
+     * @param state state for which to return the heuristic
+     * @return heuristic value, 0 if the state space has no heuristic
+     */
+    default double getHeuristic(String state) {
+        return 0;
+    }
+
+    /**
+     * Returns the successor function of the state space.
+     * @return successor function
+     */
+    default Function<String, List<Transition>> successor() {
+        return this::getSuccessors;
+    }
+
+    /**
+     * Returns the goal function of the state space.
+     * @return goal function
+     */
+    default Predicate<String> goal() {
+        return this::isGoal;
+    }
+
+    /**
+     * Creates a generated state space from its specification. Supported specifications are:
+     * <ul>
+     *     <li>{@code npuzzle:<tiles>}, tiles of the initial state separated by underscores, 0 is the blank</li>
+     *     <li>{@code grid:<path>}, path to the map of the grid</li>
+     * </ul>
+     * @param specification specification of the state space
+     * @return state space
+     * @throws IOException if there is a problem with reading the map of the grid
+     * @throws IllegalArgumentException if the specification is not supported
+     */
+    static StateSpace of(String specification) throws IOException {
+        int colon = specification.indexOf(':');
+        if (colon < 0)
+            throw new IllegalArgumentException("State space not supported!\nSupported state spaces are:\n\t1. npuzzle:<tiles>\n\t2. grid:<path>");
+        String argument = specification.substring(colon + 1);
+        switch (specification.substring(0, colon).toLowerCase()) {
+            case "npuzzle":
+                return new NPuzzleStateSpace(argument);
+            case "grid":
+                return new GridStateSpace(argument);
+            default:
+                throw new IllegalArgumentException("State space not supported!\nSupported state spaces are:\n\t1. npuzzle:<tiles>\n\t2. grid:<path>");
+        }
+    }
+}